@@ -22,11 +22,8 @@
 package com.yujunyang.intellij.plugin.sonar.actions;
 
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.compiler.CompileScope;
-import com.intellij.openapi.compiler.CompilerManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
-import com.intellij.util.Consumer;
 import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
@@ -42,11 +39,6 @@ public class AnalyzeChangelistFiles extends AbstractAnalyzeAction {
             @NotNull ToolWindow toolWindow,
             @NotNull AnalyzeState state) {
         new SonarScannerStarter(project, ResourcesLoader.getString("task.analysis.title", project.getName())) {
-            @Override
-            protected void createCompileScope(@NotNull CompilerManager compilerManager, @NotNull Consumer<CompileScope> consumer) {
-                consumer.consume(compilerManager.createProjectCompileScope(project));
-            }
-
             @Override
             protected AnalyzeScope createAnalyzeScope() {
                 return new AnalyzeScope(project, AnalyzeScope.ScopeType.CHANGELIST_FILES, IdeaUtils.getValidChangelistFiles(project));
@@ -61,7 +53,7 @@ public class AnalyzeChangelistFiles extends AbstractAnalyzeAction {
             @NotNull ToolWindow toolWindow,
             @NotNull AnalyzeState state) {
         boolean existChangedFiles = IdeaUtils.getValidChangelistFiles(project).size() > 0;
-        final boolean enable = state.isIdle() && existChangedFiles;
+        final boolean enable = existChangedFiles;
 
         e.getPresentation().setEnabled(enable);
         e.getPresentation().setVisible(true);
@@ -23,11 +23,8 @@
 package com.yujunyang.intellij.plugin.sonar.actions;
 
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.compiler.CompileScope;
-import com.intellij.openapi.compiler.CompilerManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
-import com.intellij.util.Consumer;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
 import com.yujunyang.intellij.plugin.sonar.core.SonarScannerStarter;
@@ -49,9 +46,8 @@ public abstract class AnalyzeProjectFiles extends AbstractAnalyzeAction {
             @NotNull final AnalyzeState state
     ) {
 
-        final boolean enable = state.isIdle();
-
-        e.getPresentation().setEnabled(enable);
+        // 正在分析时加入分析队列，不再禁用
+        e.getPresentation().setEnabled(true);
         e.getPresentation().setVisible(true);
     }
 
@@ -64,11 +60,6 @@ public abstract class AnalyzeProjectFiles extends AbstractAnalyzeAction {
             @NotNull final AnalyzeState state
     ) {
         new SonarScannerStarter(project, ResourcesLoader.getString("task.analysis.title", project.getName())) {
-            @Override
-            protected void createCompileScope(@NotNull CompilerManager compilerManager, @NotNull Consumer<CompileScope> consumer) {
-                consumer.consume(compilerManager.createProjectCompileScope(project));
-            }
-
             @Override
             protected AnalyzeScope createAnalyzeScope() {
                 return new AnalyzeScope(project, AnalyzeScope.ScopeType.PROJECT_FILES);
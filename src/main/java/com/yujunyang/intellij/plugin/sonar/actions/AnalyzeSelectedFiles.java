@@ -22,15 +22,11 @@
 package com.yujunyang.intellij.plugin.sonar.actions;
 
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.compiler.CompileScope;
-import com.intellij.openapi.compiler.CompilerManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.ToolWindow;
-import com.intellij.util.Consumer;
 import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
@@ -48,11 +44,6 @@ public class AnalyzeSelectedFiles extends AbstractAnalyzeAction {
             @NotNull ToolWindow toolWindow,
             @NotNull AnalyzeState state) {
         new SonarScannerStarter(project, ResourcesLoader.getString("task.analysis.title", project.getName())) {
-            @Override
-            protected void createCompileScope(@NotNull CompilerManager compilerManager, @NotNull Consumer<CompileScope> consumer) {
-                consumer.consume(compilerManager.createProjectCompileScope(project));
-            }
-
             @Override
             protected AnalyzeScope createAnalyzeScope() {
                 return ApplicationManager.getApplication().runReadAction((Computable<AnalyzeScope>) () ->
@@ -69,23 +60,12 @@ public class AnalyzeSelectedFiles extends AbstractAnalyzeAction {
             @NotNull AnalyzeState state) {
         final List<VirtualFile> selectedFiles = IdeaUtils.getValidSelectedFiles(project, e.getDataContext());
 
-        boolean enable = false;
-        if (state.isIdle()) {
-            enable = selectedFiles != null &&
-                    selectedFiles.size() > 0;
-        }
+        boolean enable = selectedFiles != null &&
+                selectedFiles.size() > 0;
 
         e.getPresentation().setEnabled(enable);
         e.getPresentation().setVisible(true);
-        setText(e);
-    }
-
-    private void setText(AnActionEvent e) {
-        if (PlatformDataKeys.EDITOR.getData(e.getDataContext()) == null) {
-            e.getPresentation().setText(ResourcesLoader.getString("action.analyze.selectedFiles"));
-        } else {
-            e.getPresentation().setText(ResourcesLoader.getString("action.analyze.currentFile"));
-        }
+        e.getPresentation().setText(ResourcesLoader.getString("action.analyze.selectedFiles"));
     }
 
 
@@ -21,17 +21,11 @@
 
 package com.yujunyang.intellij.plugin.sonar.actions;
 
-import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
-import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
-import com.yujunyang.intellij.plugin.sonar.core.Report;
-import com.yujunyang.intellij.plugin.sonar.core.ReportUtils;
-import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
-import com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService;
 import org.jetbrains.annotations.NotNull;
 
 public class TestAction extends AbstractAction {
@@ -78,23 +72,6 @@ public class TestAction extends AbstractAction {
 //        String version = sdk.getVersionString();
 //
 //
-        Thread thread = new Thread(() -> {
-            Report report = ReportUtils.createReport(e.getProject());
-            ProblemCacheService problemCacheService = ProblemCacheService.getInstance(project);
-            problemCacheService.setIssues(report.getIssues());
-            problemCacheService.setStats(
-                    report.getBugCount(),
-                    report.getCodeSmellCount(),
-                    report.getVulnerabilityCount(),
-                    report.getDuplicatedBlocksCount(),
-                    report.getSecurityHotSpotCount());
-            EventDispatchThreadHelper.invokeLater(() -> {
-                DaemonCodeAnalyzer.getInstance(project).restart();
-                MessageBusManager.publishAnalysisFinished(e.getProject(), new Object(), null);
-            });
-        });
-        thread.start();
-
 //        NotificationGroup.balloonGroup("Sonar Intellij plugin Balloon Notification").createNotification(
 //                "Sonar Intellij plugin",
 //                ResourcesLoader.getString("settings.uiLanguages.switchSuccess"),
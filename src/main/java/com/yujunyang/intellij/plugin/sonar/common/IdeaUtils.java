@@ -461,6 +461,22 @@ public final class IdeaUtils {
                     OrderEnumerator.orderEntries(project).recursively().getPathsList().getPathsString()
             );
         }
+        return filterJarPaths(fullClassPath);
+    }
+
+    public static String getFullClassPath(Module module) {
+        String fullClassPath;
+        if (EventQueue.isDispatchThread()) {
+            fullClassPath = OrderEnumerator.orderEntries(module).recursively().getPathsList().getPathsString();
+        } else {
+            fullClassPath = ApplicationManager.getApplication().runReadAction((Computable<String>) () ->
+                    OrderEnumerator.orderEntries(module).recursively().getPathsList().getPathsString()
+            );
+        }
+        return filterJarPaths(fullClassPath);
+    }
+
+    private static String filterJarPaths(String fullClassPath) {
         String splitChar;
         if (fullClassPath.contains(";")) {
             splitChar = ";";
@@ -654,6 +670,26 @@ public final class IdeaUtils {
         return Arrays.stream(openFiles).filter(n -> isValidFileType(n.getFileType()) && isInProject(project, n)).collect(Collectors.toList());
     }
 
+    /**
+     * The file of the selected editor, null if it is not a valid file of the project.
+     */
+    @Nullable
+    public static VirtualFile getValidCurrentFile(Project project) {
+        VirtualFile[] selectedFiles = FileEditorManager.getInstance(project).getSelectedFiles();
+        if (selectedFiles.length == 0) {
+            return null;
+        }
+        VirtualFile currentFile = selectedFiles[0];
+        return isValidProjectFile(project, currentFile) ? currentFile : null;
+    }
+
+    /**
+     * The file still exists, is of a supported type and belongs to the project.
+     */
+    public static boolean isValidProjectFile(Project project, VirtualFile virtualFile) {
+        return virtualFile.isValid() && isValidFileType(virtualFile.getFileType()) && isInProject(project, virtualFile);
+    }
+
     public static List<VirtualFile> getValidChangelistFiles(Project project) {
         ChangeListManager changeListManager = (ChangeListManager) ChangeListManager.getInstance(project);
         return changeListManager.getAffectedPaths().stream().
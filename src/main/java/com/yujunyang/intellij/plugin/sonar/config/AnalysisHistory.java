@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.config;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Attribute;
+import com.intellij.util.xmlb.annotations.Tag;
+import com.intellij.util.xmlb.annotations.XCollection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Durations of the scanner phases of the previous analyses, per analyze scope type. Used to estimate the progress
+ * of the next analysis, see {@link com.yujunyang.intellij.plugin.sonar.core.AnalysisPhaseTracker}.
+ */
+@State(name = "SonarAnalyzer-History", storages = {@Storage(StoragePathMacros.WORKSPACE_FILE)})
+public class AnalysisHistory implements PersistentStateComponent<AnalysisHistory> {
+
+    @XCollection(propertyElementName = "phases", elementName = "phase")
+    public List<PhaseDuration> phases = new ArrayList<>();
+
+    @Nullable
+    @Override
+    public synchronized AnalysisHistory getState() {
+        return this;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull AnalysisHistory state) {
+        XmlSerializerUtil.copyBean(state, this);
+    }
+
+    public static AnalysisHistory getInstance(Project project) {
+        return project.getService(AnalysisHistory.class);
+    }
+
+    /**
+     * @return the phases of the scope type in the order of the last analysis
+     */
+    @NotNull
+    public synchronized List<PhaseDuration> getPhases(@NotNull String scopeType) {
+        return phases.stream().filter(n -> scopeType.equals(n.scopeType)).collect(Collectors.toList());
+    }
+
+    /**
+     * Replace the phases of the scope type, the duration of a phase already known is averaged with the previous one.
+     */
+    public synchronized void record(@NotNull String scopeType, @NotNull Map<String, Long> durations) {
+        Map<String, Long> previousDurations = new HashMap<>();
+        getPhases(scopeType).forEach(n -> previousDurations.put(n.name, n.duration));
+        phases.removeIf(n -> scopeType.equals(n.scopeType));
+        for (Map.Entry<String, Long> item : durations.entrySet()) {
+            Long previous = previousDurations.get(item.getKey());
+            long duration = previous == null ? item.getValue() : (previous + item.getValue()) / 2;
+            phases.add(new PhaseDuration(scopeType, item.getKey(), duration));
+        }
+    }
+
+    @Tag("phase")
+    public static class PhaseDuration {
+        @Attribute
+        public String scopeType;
+
+        @Attribute
+        public String name;
+
+        /**
+         * Milliseconds.
+         */
+        @Attribute
+        public long duration;
+
+        public PhaseDuration() {
+        }
+
+        public PhaseDuration(String scopeType, String name, long duration) {
+            this.scopeType = scopeType;
+            this.name = name;
+            this.duration = duration;
+        }
+    }
+}
@@ -48,6 +48,36 @@ public class ProjectSettings implements PersistentStateComponent<ProjectSettings
     @Tag
     public SeverityType severityType = SeverityType.ANY;
 
+    /**
+     * Analyze the saved files in background, see {@link com.yujunyang.intellij.plugin.sonar.service.AutoAnalysisScheduler}.
+     */
+    @Tag
+    public boolean autoAnalysisOnSave = false;
+
+    /**
+     * Comma separated exclusion patterns, added to the excluded and generated source folders of the project, see
+     * {@link com.yujunyang.intellij.plugin.sonar.core.ScannerExclusions}.
+     */
+    @Tag
+    public String exclusionPatterns = "";
+
+    /**
+     * Use the {@link com.yujunyang.intellij.plugin.sonar.core.QuickProfile} for the analysis of the current file and
+     * the analysis on save, manual analyses of other scopes always use the full profile.
+     */
+    @Tag
+    public boolean quickProfileEnabled = false;
+
+    @Tag
+    public boolean quickProfileSkipCpd = true;
+
+    /**
+     * Semicolon separated key=value properties added by the quick profile, lowering the effort of expensive sensors or
+     * skipping them. By default the bytecode analysis of SpotBugs runs with its lowest effort.
+     */
+    @Tag
+    public String quickProfileProperties = "sonar.findbugs.effort=min";
+
     @Tag("sonarProperties")
     @MapAnnotation(
             surroundWithTag = false,
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.config;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Attribute;
+import com.intellij.util.xmlb.annotations.Tag;
+import com.intellij.util.xmlb.annotations.XCollection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sensor timings of the last analyses, the newest run is the last one.
+ */
+@State(name = "SonarAnalyzer-SensorProfiles", storages = {@Storage(StoragePathMacros.WORKSPACE_FILE)})
+public class SensorProfileHistory implements PersistentStateComponent<SensorProfileHistory> {
+    private static final int MAX_RUNS = 20;
+
+    @XCollection(propertyElementName = "runs", elementName = "run")
+    public List<ProfileRun> runs = new ArrayList<>();
+
+    @Nullable
+    @Override
+    public synchronized SensorProfileHistory getState() {
+        return this;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull SensorProfileHistory state) {
+        XmlSerializerUtil.copyBean(state, this);
+    }
+
+    public static SensorProfileHistory getInstance(Project project) {
+        return project.getService(SensorProfileHistory.class);
+    }
+
+    public synchronized void add(@NotNull ProfileRun run) {
+        runs.add(run);
+        while (runs.size() > MAX_RUNS) {
+            runs.remove(0);
+        }
+    }
+
+    /**
+     * @param offset 0 for the newest run, 1 for the one before...
+     */
+    @Nullable
+    public synchronized ProfileRun getRun(int offset) {
+        int index = runs.size() - 1 - offset;
+        return index < 0 ? null : runs.get(index);
+    }
+
+    @Tag("run")
+    public static class ProfileRun {
+        @Attribute
+        public long timestamp;
+
+        @Attribute
+        public String scopeType;
+
+        @XCollection(elementName = "sensor")
+        public List<SensorTiming> timings = new ArrayList<>();
+
+        public ProfileRun() {
+        }
+
+        public ProfileRun(long timestamp, String scopeType, List<SensorTiming> timings) {
+            this.timestamp = timestamp;
+            this.scopeType = scopeType;
+            this.timings = timings;
+        }
+    }
+
+    @Tag("sensor")
+    public static class SensorTiming {
+        @Attribute
+        public String module;
+
+        @Attribute
+        public String name;
+
+        @Attribute
+        public String language;
+
+        /**
+         * Milliseconds.
+         */
+        @Attribute
+        public long time;
+
+        public SensorTiming() {
+        }
+
+        public SensorTiming(String module, String name, String language, long time) {
+            this.module = module;
+            this.name = name;
+            this.language = language;
+            this.time = time;
+        }
+
+        /**
+         * Identify the same sensor across runs.
+         */
+        public String getKey() {
+            return module + "|" + name + "|" + language;
+        }
+    }
+}
@@ -62,6 +62,65 @@ public final class WorkspaceSettings implements PersistentStateComponent<Workspa
     @Tag
     public String uiLanguageLocale = "zh";
 
+    /**
+     * Minutes an idle scanner session is kept started, 0 stops the scanner after every analysis.
+     */
+    @Tag
+    public int scannerSessionIdleMinutes = 10;
+
+    /**
+     * Analyze the project files as concurrent per-module scanner executions.
+     */
+    @Tag
+    public boolean parallelModuleAnalysis = false;
+
+    /**
+     * Max concurrent scanner executions of the parallel module analysis.
+     */
+    @Tag
+    public int parallelScannerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Build the modules in batches in the parallel module analysis and start the analysis of the modules of each batch
+     * as soon as it is built, instead of building the whole project first.
+     */
+    @Tag
+    public boolean pipelinedModuleBuild = false;
+
+    /**
+     * Prefetch the analyzer plugins and the rules after the project is opened, see
+     * {@link com.yujunyang.intellij.plugin.sonar.extensions.PrewarmStartupActivity}.
+     */
+    @Tag
+    public boolean prewarmOnStartup = false;
+
+    /**
+     * Max concurrent scanner executions of all open projects, see {@link com.yujunyang.intellij.plugin.sonar.service.AnalysisGovernor}.
+     */
+    @Tag
+    public int maxConcurrentScanners = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Estimated heap used by one scanner execution in the IDE process, 0 to not limit by heap.
+     */
+    @Tag
+    public int scannerHeapEstimateMb = 512;
+
+    /**
+     * Run the scanner in a separate worker JVM so that the analyzers do not allocate in the IDE heap.
+     */
+    @Tag
+    public boolean scannerWorkerProcess = false;
+
+    @Tag
+    public String scannerWorkerVmOptions = "-Xmx2g -XX:+UseParallelGC";
+
+    /**
+     * Root of the scanner working directories, e.g. /dev/shm or a local SSD. Empty for the .idea directory of the project.
+     */
+    @Tag
+    public String scannerWorkingDirRoot = "";
+
 
     @Tag("sonarQubeConnections")
     @AbstractCollection(surroundWithTag = false, elementTag = Constants.SET)
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cancellation state of one analysis, cancelled by the progress indicator or by {@link #cancel()}. The callbacks
+ * registered by {@link #onCancel(Runnable)} stop what can not check the state by itself, e.g. a worker process.
+ * <p>
+ * Executions which did not stop in time are {@link #abandon(CompletableFuture) abandoned}, the callbacks registered by
+ * {@link #whenStopped(Runnable)} run once they all ended.
+ */
+public final class AnalysisCancellation implements BooleanSupplier {
+    private static final Logger LOGGER = Logger.getInstance(AnalysisCancellation.class);
+
+    private final ProgressIndicator indicator;
+    private final AtomicBoolean cancelled;
+    private final List<Runnable> callbacks;
+    private final List<Runnable> stoppedCallbacks;
+    private int abandonedCount;
+
+    public AnalysisCancellation(@Nullable ProgressIndicator indicator) {
+        this.indicator = indicator;
+        cancelled = new AtomicBoolean();
+        callbacks = new CopyOnWriteArrayList<>();
+        stoppedCallbacks = new ArrayList<>();
+    }
+
+    public boolean isCancelled() {
+        if (!cancelled.get() && indicator != null && indicator.isCanceled()) {
+            cancel();
+        }
+        return cancelled.get();
+    }
+
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new ProcessCanceledException();
+        }
+    }
+
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            callbacks.forEach(AnalysisCancellation::runCallback);
+        }
+    }
+
+    /**
+     * The callback is run at once if the analysis is already cancelled.
+     */
+    public void onCancel(@NotNull Runnable callback) {
+        callbacks.add(callback);
+        if (cancelled.get() && callbacks.remove(callback)) {
+            runCallback(callback);
+        }
+    }
+
+    public void removeCallback(@NotNull Runnable callback) {
+        callbacks.remove(callback);
+    }
+
+    /**
+     * Stop waiting for an execution still running after the cancellation, the analysis ends without it.
+     *
+     * @param execution completed when the execution really ended
+     */
+    public void abandon(@NotNull CompletableFuture<?> execution) {
+        synchronized (stoppedCallbacks) {
+            abandonedCount++;
+        }
+        execution.whenComplete((result, e) -> abandonedExecutionStopped());
+    }
+
+    /**
+     * Run the callback once the abandoned executions ended, at once if there are none.
+     */
+    public void whenStopped(@NotNull Runnable callback) {
+        synchronized (stoppedCallbacks) {
+            if (abandonedCount > 0) {
+                stoppedCallbacks.add(callback);
+                return;
+            }
+        }
+        runCallback(callback);
+    }
+
+    private void abandonedExecutionStopped() {
+        List<Runnable> toRun;
+        synchronized (stoppedCallbacks) {
+            if (--abandonedCount > 0) {
+                return;
+            }
+            toRun = new ArrayList<>(stoppedCallbacks);
+            stoppedCallbacks.clear();
+        }
+        toRun.forEach(AnalysisCancellation::runCallback);
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        return isCancelled();
+    }
+
+    private static void runCallback(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            LOGGER.warn(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.yujunyang.intellij.plugin.sonar.config.AnalysisHistory;
+import com.yujunyang.intellij.plugin.sonar.worker.ScannerWorkerMain;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Turn the scanner log into phases ("Load project repositories", "Sensor JavaSquidSensor [java]", ...) and show the
+ * progress on the indicator. Each phase is weighted by its duration in the previous analyses, the indicator stays
+ * indeterminate when there is no history yet.
+ */
+public final class AnalysisPhaseTracker {
+    public static final String BOOTSTRAP_PHASE = "Bootstrap";
+
+    private static final List<String> PHASE_PREFIXES = Arrays.asList(
+            "Load ",
+            "Index files",
+            "Indexing files",
+            "Sensor ",
+            "CPD Executor",
+            ScannerWorkerMain.REPORT_GENERATED_LOG_PREFIX
+    );
+    private static final String DONE_MARK = "(done)";
+    private static final double MAX_FRACTION = 0.99;
+
+    private final ProgressIndicator indicator;
+    private final Map<String, Long> expectedDurations;
+    private final long expectedTotal;
+    private final Map<String, Long> durations;
+    private String currentPhase;
+    private long currentPhaseStart;
+    private long completedExpected;
+    private double fraction;
+
+    public AnalysisPhaseTracker(@NotNull ProgressIndicator indicator, @NotNull List<AnalysisHistory.PhaseDuration> history) {
+        this.indicator = indicator;
+        expectedDurations = new HashMap<>();
+        history.forEach(n -> expectedDurations.put(n.name, n.duration));
+        expectedTotal = expectedDurations.values().stream().mapToLong(Long::longValue).sum();
+        durations = new LinkedHashMap<>();
+        currentPhase = BOOTSTRAP_PHASE;
+        currentPhaseStart = System.currentTimeMillis();
+        if (expectedTotal > 0) {
+            indicator.setIndeterminate(false);
+            indicator.setFraction(0);
+        }
+        indicator.setText2(currentPhase);
+    }
+
+    public synchronized void logged(@NotNull String formattedMessage) {
+        long now = System.currentTimeMillis();
+        String phase = toPhase(formattedMessage);
+        if (phase != null && !phase.equals(currentPhase)) {
+            closeCurrentPhase(now);
+            currentPhase = phase;
+            currentPhaseStart = now;
+            indicator.setText2(phase);
+        }
+        updateFraction(now);
+    }
+
+    /**
+     * @return the duration of each phase in milliseconds, in the order they were run
+     */
+    @NotNull
+    public synchronized Map<String, Long> finish() {
+        closeCurrentPhase(System.currentTimeMillis());
+        currentPhase = null;
+        return new LinkedHashMap<>(durations);
+    }
+
+    private void closeCurrentPhase(long now) {
+        if (currentPhase == null) {
+            return;
+        }
+        // 同名阶段可能多次出现（如多个模块的Load），累加
+        durations.merge(currentPhase, now - currentPhaseStart, Long::sum);
+        completedExpected += expectedDurations.getOrDefault(currentPhase, 0L);
+    }
+
+    private void updateFraction(long now) {
+        if (expectedTotal <= 0 || currentPhase == null) {
+            return;
+        }
+        long currentExpected = expectedDurations.getOrDefault(currentPhase, 0L);
+        long currentElapsed = Math.min(now - currentPhaseStart, currentExpected);
+        double newFraction = Math.min(MAX_FRACTION, (double) (completedExpected + currentElapsed) / expectedTotal);
+        // 阶段耗时与历史不一致时避免进度回退
+        if (newFraction > fraction) {
+            fraction = newFraction;
+            indicator.setFraction(fraction);
+        }
+    }
+
+    private static String toPhase(String formattedMessage) {
+        if (formattedMessage.contains(DONE_MARK)) {
+            return null;
+        }
+        for (String prefix : PHASE_PREFIXES) {
+            if (formattedMessage.startsWith(prefix)) {
+                return prefix.equals(ScannerWorkerMain.REPORT_GENERATED_LOG_PREFIX) ? prefix : formattedMessage.trim();
+            }
+        }
+        return null;
+    }
+}
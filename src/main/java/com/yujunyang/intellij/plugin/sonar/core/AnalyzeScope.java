@@ -21,20 +21,33 @@
 
 package com.yujunyang.intellij.plugin.sonar.core;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.service.ClasspathIndexService;
 
 public class AnalyzeScope {
     private ScopeType type;
     private List<VirtualFile> files;
     private Project project;
     private Module module;
+    private Set<Module> mergedModules;
+    private Path stagedBinariesDir;
+    private boolean interactive;
 
     public AnalyzeScope(Project project, ScopeType type) {
         this.project = project;
@@ -51,6 +64,166 @@ public class AnalyzeScope {
         this.files = files;
     }
 
+    public AnalyzeScope(Project project, List<VirtualFile> files, Set<Module> modules) {
+        this(project, ScopeType.MERGED, files);
+        this.mergedModules = modules;
+    }
+
+    /**
+     * Union of the files and modules of two scopes, files inside a module of the union are dropped. Scopes of the
+     * same type keep the type. Must be called in read action.
+     */
+    public static AnalyzeScope merge(AnalyzeScope first, AnalyzeScope second) {
+        Project project = first.getProject();
+        if (ScopeType.PROJECT_FILES.equals(first.type) || ScopeType.PROJECT_FILES.equals(second.type)) {
+            return new AnalyzeScope(project, ScopeType.PROJECT_FILES);
+        }
+
+        Set<Module> modules = new LinkedHashSet<>();
+        modules.addAll(first.getWholeModules());
+        modules.addAll(second.getWholeModules());
+        List<VirtualFile> files = new ArrayList<>();
+        Stream.concat(first.getFiles().stream(), second.getFiles().stream()).filter(VirtualFile::isValid).distinct().forEach(n -> {
+            if (!modules.contains(ModuleUtilCore.findModuleForFile(n, project))) {
+                files.add(n);
+            }
+        });
+        files.removeIf(n -> files.stream().anyMatch(m -> VfsUtilCore.isAncestor(m, n, true)));
+
+        AnalyzeScope ret;
+        if (files.isEmpty() && modules.size() == 1) {
+            ret = new AnalyzeScope(project, ScopeType.MODULE_FILES, modules.iterator().next());
+        } else if (modules.isEmpty() && first.type.equals(second.type) && !ScopeType.PACKAGE_FILES.equals(first.type)) {
+            ret = new AnalyzeScope(project, first.type, files);
+        } else {
+            ret = new AnalyzeScope(project, files, modules);
+        }
+        // 只要有一个是手动发起的完整分析, 合并后就使用完整规则
+        ret.setInteractive(first.isInteractive() && second.isInteractive());
+        return ret;
+    }
+
+    /**
+     * Interactive and automatically triggered analyses use the {@link QuickProfile} when it is enabled.
+     */
+    public void setInteractive(boolean interactive) {
+        this.interactive = interactive;
+    }
+
+    public boolean isInteractive() {
+        return interactive;
+    }
+
+    public boolean isQuickProfile() {
+        return interactive && QuickProfile.isEnabled(project);
+    }
+
+    public RuleProfileTier getRuleProfileTier() {
+        return isQuickProfile() ? RuleProfileTier.QUICK : RuleProfileTier.FULL;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public ScopeType getType() {
+        return type;
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    /**
+     * Modules owning the files of this scope, empty for project scope. Must be called in read action.
+     */
+    public Set<Module> getModules() {
+        Set<Module> ret = new LinkedHashSet<>();
+        if (ScopeType.PROJECT_FILES.equals(type)) {
+            return ret;
+        }
+
+        if (module != null) {
+            ret.add(module);
+            return ret;
+        }
+
+        ret.addAll(getWholeModules());
+        getFiles().forEach(n -> {
+            Module fileModule = ModuleUtilCore.findModuleForFile(n, project);
+            if (fileModule != null) {
+                ret.add(fileModule);
+            }
+        });
+        return ret;
+    }
+
+    public List<VirtualFile> getFiles() {
+        return files == null ? Collections.emptyList() : files;
+    }
+
+    /**
+     * Modules analyzed as a whole, not only through some of their files.
+     */
+    public Set<Module> getWholeModules() {
+        if (ScopeType.MODULE_FILES.equals(type)) {
+            return Collections.singleton(module);
+        }
+        return mergedModules == null ? Collections.emptySet() : mergedModules;
+    }
+
+    /**
+     * A file scope without any file has nothing to analyze, it is rejected before the analysis starts instead of
+     * falling back to the whole project.
+     */
+    public boolean isEmpty() {
+        if (ScopeType.PROJECT_FILES.equals(type) || ScopeType.MODULE_FILES.equals(type)) {
+            return false;
+        }
+        return getFiles().isEmpty() && getWholeModules().isEmpty();
+    }
+
+    /**
+     * Incremental scope only replaces the results of its files, the results of the other files are kept.
+     */
+    public boolean isIncremental() {
+        return ScopeType.MODIFIED_FILES.equals(type) || ScopeType.MERGED.equals(type) || ScopeType.CURRENT_FILE.equals(type);
+    }
+
+    /**
+     * Project relative path of the only file the scanner should index, null if the scope is not limited to one file.
+     */
+    public String getInclusions() {
+        if (!ScopeType.CURRENT_FILE.equals(type) || getFiles().size() != 1) {
+            return null;
+        }
+        String basePath = project.getBasePath();
+        String path = getFiles().get(0).getPath();
+        if (basePath == null || !path.startsWith(basePath + "/")) {
+            return null;
+        }
+        return path.substring(basePath.length() + 1);
+    }
+
+    /**
+     * Must be called in read action.
+     */
+    public boolean contains(VirtualFile virtualFile) {
+        if (ScopeType.PROJECT_FILES.equals(type)) {
+            return true;
+        }
+
+        if (ScopeType.MODULE_FILES.equals(type)) {
+            return module.equals(ModuleUtilCore.findModuleForFile(virtualFile, project));
+        }
+
+        if (ScopeType.MERGED.equals(type) && getWholeModules().contains(ModuleUtilCore.findModuleForFile(virtualFile, project))) {
+            return true;
+        }
+
+        return getFiles().stream().anyMatch(n -> n.equals(virtualFile) || VfsUtilCore.isAncestor(n, virtualFile, true));
+    }
+
     public String getSources() {
         if (ScopeType.PROJECT_FILES.equals(type)) {
             return IdeaUtils.getAllSourceRootPath(project);
@@ -60,14 +233,31 @@ public class AnalyzeScope {
             return IdeaUtils.getAllSourceRootPath(module);
         }
 
+        if (ScopeType.MERGED.equals(type)) {
+            List<String> ret = new ArrayList<>();
+            getWholeModules().forEach(n -> ret.add(IdeaUtils.getAllSourceRootPath(n)));
+            ret.add(IdeaUtils.getAllSourceRootPath(getFiles()));
+            return joinPaths(ret);
+        }
+
         if (files != null && files.size() > 0) {
             return IdeaUtils.getAllSourceRootPath(files);
         }
 
-        return IdeaUtils.getAllSourceRootPath(project);
+        // 空的文件范围在启动前已被拒绝，不能退化为整个项目
+        throw new IllegalStateException("Empty analyze scope " + type);
     }
 
     public String getJavaBinaries() {
+        if (isClassFileStaging()) {
+            // 只传入分析文件对应的class文件，而非整个包的输出目录；暂存的文件操作不在读锁内进行
+            ClassFileStager.delete(stagedBinariesDir);
+            stagedBinariesDir = ClassFileStager.stage(project, files);
+            if (stagedBinariesDir != null) {
+                return stagedBinariesDir.toString();
+            }
+        }
+
         return ApplicationManager.getApplication().runReadAction((Computable<String>)() -> {
             if (ScopeType.PROJECT_FILES.equals(type)) {
                 return IdeaUtils.getAllCompilerOutputPath(project);
@@ -77,14 +267,64 @@ public class AnalyzeScope {
                 return IdeaUtils.getAllCompilerOutputPath(module);
             }
 
+            if (ScopeType.MERGED.equals(type)) {
+                List<String> ret = new ArrayList<>();
+                getWholeModules().forEach(n -> ret.add(IdeaUtils.getAllCompilerOutputPath(n)));
+                ret.add(IdeaUtils.getAllCompilerOutputPath(project, getFiles()));
+                return joinPaths(ret);
+            }
+
             if (files != null && files.size() > 0) {
                 return IdeaUtils.getAllCompilerOutputPath(project, files);
             }
 
-            return IdeaUtils.getAllCompilerOutputPath(project);
+            throw new IllegalStateException("Empty analyze scope " + type);
         });
     }
 
+    public String getJavaLibraries() {
+        ClasspathIndexService classpathIndexService = ClasspathIndexService.getInstance(project);
+        if (ScopeType.PROJECT_FILES.equals(type)) {
+            return classpathIndexService.getProjectLibraries();
+        }
+
+        // 只传入分析文件所属模块及其依赖模块的类库
+        Set<Module> modules = ApplicationManager.getApplication().runReadAction((Computable<Set<Module>>) this::getModules);
+        if (modules.isEmpty()) {
+            return classpathIndexService.getProjectLibraries();
+        }
+        String libraries = classpathIndexService.getLibraries(modules);
+        if (isClassFileStaging()) {
+            // binaries只包含分析文件的class，其引用的项目中其他类需通过libraries提供
+            String outputDirectories = classpathIndexService.getOutputDirectories(modules);
+            if (!outputDirectories.isEmpty()) {
+                return libraries.isEmpty() ? outputDirectories : libraries + "," + outputDirectories;
+            }
+        }
+        return libraries;
+    }
+
+    /**
+     * Delete the class files staged for this scope, call after the analysis finished.
+     */
+    public void cleanup() {
+        ClassFileStager.delete(stagedBinariesDir);
+        stagedBinariesDir = null;
+    }
+
+    private boolean isClassFileStaging() {
+        if (!(ScopeType.SELECTED_FILES.equals(type) || ScopeType.OPEN_FILES.equals(type)
+                || ScopeType.CHANGELIST_FILES.equals(type) || ScopeType.MODIFIED_FILES.equals(type)
+                || ScopeType.CURRENT_FILE.equals(type))) {
+            return false;
+        }
+        return files != null && !files.isEmpty() && files.stream().noneMatch(VirtualFile::isDirectory);
+    }
+
+    private static String joinPaths(List<String> paths) {
+        return paths.stream().filter(n -> !n.isEmpty()).distinct().collect(Collectors.joining(","));
+    }
+
     public String getScopeDescription() {
         StringBuilder ret = new StringBuilder("Analyze scope: ");
         if (ScopeType.PROJECT_FILES.equals(type)) {
@@ -107,15 +347,28 @@ public class AnalyzeScope {
             return ret.toString();
         }
 
+        if (ScopeType.MERGED.equals(type)) {
+            ret.append("Merged queued scopes\n");
+            getWholeModules().forEach(n -> {
+                ret.append("\tModule[");
+                ret.append(n.getName());
+                ret.append("]\n");
+            });
+        }
+
         if (ScopeType.OPEN_FILES.equals(type)) {
             ret.append("Open files\n");
         } else if (ScopeType.CHANGELIST_FILES.equals(type)) {
             ret.append("Changelist files\n");
         } else if (ScopeType.SELECTED_FILES.equals(type)) {
             ret.append("Selected files\n");
+        } else if (ScopeType.MODIFIED_FILES.equals(type)) {
+            ret.append("Modified files since last analysis\n");
+        } else if (ScopeType.CURRENT_FILE.equals(type)) {
+            ret.append("Current file\n");
         }
 
-        files.forEach(n -> {
+        getFiles().forEach(n -> {
             ret.append("\t");
             ret.append(n.getCanonicalPath());
             ret.append("\n");
@@ -129,6 +382,16 @@ public class AnalyzeScope {
         PACKAGE_FILES,
         CHANGELIST_FILES,
         SELECTED_FILES,
-        OPEN_FILES;
+        OPEN_FILES,
+        MODIFIED_FILES,
+        /**
+         * The file of the selected editor, analyzed through the fast path: only its class is built and staged and
+         * only its own results are replaced.
+         */
+        CURRENT_FILE,
+        /**
+         * Union of queued scopes, see {@link #merge(AnalyzeScope, AnalyzeScope)}.
+         */
+        MERGED;
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.yujunyang.intellij.plugin.sonar.common.ClassAdder;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stages the exact class files (including inner and anonymous classes) of some source files into a per-run binaries
+ * directory, so that the bytecode analysis only sees the classes of the analyzed files and not whole package directories.
+ * Class files are hard linked, symbolic linked or copied, in this order of preference.
+ */
+public final class ClassFileStager {
+    private static final Logger LOGGER = Logger.getInstance(ClassFileStager.class);
+    private static final String STAGING_DIR = ".binaries";
+
+    private ClassFileStager() {
+    }
+
+    /**
+     * The class files are looked up in a read action, they are staged outside of it. Must not be called in read
+     * action.
+     *
+     * @return the staging directory, null if no class file of the files exists or if some class file could not be
+     * staged, the caller then falls back to the output directories
+     */
+    @Nullable
+    public static Path stage(@NotNull Project project, @NotNull List<VirtualFile> files) {
+        Map<Path, Path> classFiles = ReadAction.compute(() -> findClassFiles(project, files));
+        if (classFiles.isEmpty()) {
+            return null;
+        }
+
+        Path stagingDir = ReportUtils.getWorkingDirRoot(project).resolve(STAGING_DIR).resolve(UUID.randomUUID().toString());
+        for (Map.Entry<Path, Path> classFile : classFiles.entrySet()) {
+            try {
+                link(classFile.getKey(), stagingDir.resolve(classFile.getValue()));
+            } catch (IOException e) {
+                // 缺少的class文件会使分析丢失语义信息，不能让binaries指向不完整的目录
+                LOGGER.warn("Failed to stage class file " + classFile.getKey() + ", fall back to the output directories", e);
+                delete(stagingDir);
+                return null;
+            }
+        }
+        return stagingDir;
+    }
+
+    /**
+     * @return the class files of the files by their path relative to their output directory
+     */
+    private static Map<Path, Path> findClassFiles(Project project, List<VirtualFile> files) {
+        Set<String> classFilePaths = new LinkedHashSet<>();
+        ClassAdder classAdder = new ClassAdder(project, classFilePaths);
+        Set<Path> outputRoots = new LinkedHashSet<>();
+        for (VirtualFile file : files) {
+            classAdder.addContainingClasses(file);
+            outputRoots.addAll(getOutputRoots(project, file));
+        }
+
+        Map<Path, Path> ret = new LinkedHashMap<>();
+        for (String classFilePath : classFilePaths) {
+            Path classFile = Paths.get(classFilePath).toAbsolutePath().normalize();
+            outputRoots.stream().filter(classFile::startsWith).findFirst()
+                    .ifPresent(outputRoot -> ret.put(classFile, outputRoot.relativize(classFile)));
+        }
+        return ret;
+    }
+
+    public static void delete(@Nullable Path stagingDir) {
+        if (stagingDir == null) {
+            return;
+        }
+        try {
+            FileUtils.deleteDirectory(stagingDir.toFile());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete staged class files " + stagingDir, e);
+        }
+    }
+
+    private static void link(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+            return;
+        } catch (FileAlreadyExistsException e) {
+            return;
+        } catch (IOException | UnsupportedOperationException e) {
+            // 跨文件系统等情况不支持硬链接
+        }
+        try {
+            Files.createSymbolicLink(target, source);
+            return;
+        } catch (IOException | UnsupportedOperationException e) {
+            // Windows下没有权限时不支持符号链接
+        }
+        Files.copy(source, target);
+    }
+
+    private static List<Path> getOutputRoots(Project project, VirtualFile file) {
+        List<Path> ret = new ArrayList<>();
+        Module module = ModuleUtilCore.findModuleForFile(file, project);
+        CompilerModuleExtension compilerModuleExtension = module == null ? null : CompilerModuleExtension.getInstance(module);
+        if (compilerModuleExtension == null) {
+            return ret;
+        }
+        for (VirtualFile outputPath : new VirtualFile[]{compilerModuleExtension.getCompilerOutputPath(), compilerModuleExtension.getCompilerOutputPathForTests()}) {
+            if (outputPath != null) {
+                ret.add(Paths.get(outputPath.getPresentableUrl()).toAbsolutePath().normalize());
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.compiler.CompileScope;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Derives the compile scope needed before analyzing an {@link AnalyzeScope}: only the modules owning the analyzed
+ * files and the modules they depend on are built, only the file itself for {@link AnalyzeScope.ScopeType#CURRENT_FILE}.
+ */
+public final class CompilePlanner {
+    private CompilePlanner() {
+    }
+
+    @NotNull
+    public static CompileScope createCompileScope(@NotNull CompilerManager compilerManager, @NotNull AnalyzeScope analyzeScope) {
+        if (AnalyzeScope.ScopeType.PROJECT_FILES.equals(analyzeScope.getType())) {
+            return compilerManager.createProjectCompileScope(analyzeScope.getProject());
+        }
+
+        if (AnalyzeScope.ScopeType.CURRENT_FILE.equals(analyzeScope.getType())) {
+            // 单个文件只需检查并编译该文件本身
+            return compilerManager.createFilesCompileScope(analyzeScope.getFiles().toArray(VirtualFile.EMPTY_ARRAY));
+        }
+
+        Module[] modules = ApplicationManager.getApplication().runReadAction((Computable<Module[]>) () ->
+                analyzeScope.getModules().toArray(Module.EMPTY_ARRAY));
+        if (modules.length == 0) {
+            return compilerManager.createProjectCompileScope(analyzeScope.getProject());
+        }
+        return compilerManager.createModulesCompileScope(modules, true);
+    }
+
+    /**
+     * Blocking, must not be called on EDT.
+     */
+    public static boolean isUpToDate(@NotNull CompilerManager compilerManager, @NotNull CompileScope compileScope) {
+        EventDispatchThreadHelper.checkNotEDT();
+        return compilerManager.isUpToDate(compileScope);
+    }
+}
@@ -25,18 +25,38 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
 import com.yujunyang.intellij.plugin.sonar.common.SettingsUtils;
 import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
 import com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerSessionService;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerWorkerService;
+import com.yujunyang.intellij.plugin.sonar.worker.ReportComponent;
 import org.jetbrains.annotations.NotNull;
-import org.sonarsource.scanner.api.EmbeddedScanner;
 import org.sonarsource.scanner.api.LogOutput;
 
 public final class EmbeddedScannerHelper {
+    private static final long REPORT_PUBLISH_TIMEOUT_SECONDS = 10;
+    /**
+     * A sensor may not log anything for minutes, e.g. SpotBugs, the cancelled execution is abandoned after this delay.
+     */
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
     public static final List<String> EXCLUDED_PROPERTIES = Arrays.asList(
             "sonar.host.url",
             "sonar.login",
@@ -51,7 +71,7 @@ public final class EmbeddedScannerHelper {
             "sonar.sourceEncoding"
     );
 
-    public static Map<String, String> createTaskProperties(Project project, AnalyzeScope analyzeScope) {
+    public static Map<String, String> createTaskProperties(Project project, AnalyzeScope analyzeScope, String workingDirectory) {
         Map<String, String> props = new HashMap<>();
         {
             SonarQubeSettings connection = SettingsUtils.getSonarQubeConnection(project);
@@ -59,12 +79,12 @@ public final class EmbeddedScannerHelper {
             props.put("sonar.login", connection.token);
             props.put("sonar.projectKey", "SonarAnalyzer:" + project.getName());
             props.put("sonar.projectBaseDir", project.getBasePath());
-            props.put("sonar.working.directory", "./.idea/SonarAnalyzer/.scannerwork");
+            props.put("sonar.working.directory", workingDirectory);
             props.put("sonar.java.source", IdeaUtils.getProjectSdkVersion(project));
             props.put("sonar.tests", "");
             // props.put("sonar.sources", IdeaUtils.getAllSourceRootPath(project));
             props.put("sonar.sources", analyzeScope.getSources());
-            props.put("sonar.java.libraries", IdeaUtils.getFullClassPath(project));
+            props.put("sonar.java.libraries", analyzeScope.getJavaLibraries());
             props.put("sonar.java.binaries", analyzeScope.getJavaBinaries());
             props.put("sonar.sourceEncoding", IdeaUtils.getProjectFileEncoding(project));
 
@@ -79,17 +99,162 @@ public final class EmbeddedScannerHelper {
                     props.put(propertyName, propertyValue);
                 }
             }
+
+            if (analyzeScope.isQuickProfile()) {
+                QuickProfile.apply(project, props);
+            }
+
+            String inclusions = analyzeScope.getInclusions();
+            if (inclusions != null) {
+                // 单文件快速分析: 只索引该文件, 且不需要 SCM 的 blame 信息
+                props.put("sonar.inclusions", inclusions);
+                props.put("sonar.scm.disabled", "true");
+            }
+
+            // IDE 中排除的目录和生成的源码目录不需要扫描, 与用户配置的排除规则合并
+            Set<String> exclusions = ScannerExclusions.create(project);
+            if (!exclusions.isEmpty()) {
+                String joined = String.join(",", exclusions);
+                props.merge("sonar.exclusions", joined, (a, b) -> a + "," + b);
+                props.merge("sonar.cpd.exclusions", joined, (a, b) -> a + "," + b);
+            }
         }
 
         return props;
     }
 
-    public static void startEmbeddedScanner(@NotNull Project project, @NotNull AnalyzeScope analyzeScope, @NotNull LogOutput logOutput) {
-        Map<String, String> taskProperties = createTaskProperties(project, analyzeScope);
-        EmbeddedScanner scanner = EmbeddedScanner.create("Intellij Sonar plugin", IdeaUtils.getPluginVersion(), logOutput);
-        scanner.addGlobalProperties(taskProperties);
-        scanner.start();
-        scanner.execute(taskProperties);
+    /**
+     * The scanner has no API to stop an execution. On cancellation the worker process is killed, which is the only way
+     * to stop a scanner at once. The in-process execution is asked to stop by {@link ScannerCancelledError} thrown
+     * from its next log call; if it did not stop within {@link #STOP_TIMEOUT_SECONDS} it is abandoned by
+     * {@link AnalysisCancellation#abandon}, and the caller gives back its scanner slots through
+     * {@link AnalysisCancellation#whenStopped} only once it really ended. The components parsed before the
+     * cancellation are still published.
+     * <p>
+     * The working directory, see {@link ReportUtils#createWorkingDir}, is deleted when the execution ended.
+     *
+     * @throws ProcessCanceledException if cancelled
+     */
+    public static void startEmbeddedScanner(@NotNull Project project, @NotNull AnalyzeScope analyzeScope, @NotNull String workingDirectory, @NotNull LogOutputImpl logOutput, @NotNull AnalysisCancellation cancellation) throws Exception {
+        if (cancellation.isCancelled()) {
+            ReportUtils.deleteWorkingDir(workingDirectory);
+            throw new ProcessCanceledException();
+        }
+        if (WorkspaceSettings.getInstance().scannerWorkerProcess) {
+            try {
+                startWorkerScanner(project, createTaskProperties(project, analyzeScope, workingDirectory), logOutput, cancellation);
+            } finally {
+                ReportUtils.deleteWorkingDir(workingDirectory);
+            }
+            return;
+        }
+
+        AtomicBoolean stopping = new AtomicBoolean();
+        // 扫描引擎每个步骤都会输出日志，取消后在下一条日志时中断执行
+        LogOutput stoppableLogOutput = (formattedMessage, level) -> {
+            if (stopping.get()) {
+                throw new ScannerCancelledError();
+            }
+            logOutput.log(formattedMessage, level);
+        };
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        Future<?> future = ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                Map<String, String> taskProperties = createTaskProperties(project, analyzeScope, workingDirectory);
+                ScannerSessionService sessionService = ScannerSessionService.getInstance();
+                ScannerSession session = sessionService.acquire(project, stoppableLogOutput);
+                boolean succeeded = false;
+                try {
+                    session.execute(taskProperties, stoppableLogOutput);
+                    succeeded = true;
+                } finally {
+                    // 中断过的引擎状态不可靠，不再复用
+                    sessionService.release(session, succeeded && !stopping.get());
+                }
+            } finally {
+                ReportUtils.deleteWorkingDir(workingDirectory);
+                stopped.complete(null);
+            }
+        });
+
+        while (true) {
+            try {
+                future.get(100, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (cancellation.isCancelled()) {
+                    if (logOutput.isReportGenerated()) {
+                        // 报告已生成，等待已解析的部分发布
+                        logOutput.awaitReportPublished(REPORT_PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    }
+                    stopping.set(true);
+                    MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.cancel.stopping"), LogOutput.Level.INFO);
+                    // 中断引擎中等待IO的线程，会话不再复用
+                    future.cancel(true);
+                    try {
+                        stopped.get(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    } catch (TimeoutException stopTimeout) {
+                        // 长时间不输出日志的传感器无法及时中断，放弃等待，槽位在其真正结束后释放
+                        MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.cancel.abandoned"), LogOutput.Level.WARN);
+                        cancellation.abandon(stopped);
+                    }
+                    throw new ProcessCanceledException();
+                }
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    /**
+     * Thrown into the scanner engine to stop a cancelled in-process execution. An {@link Error} because the logging
+     * framework of the engine swallows the exceptions thrown by its appenders, an error unwinds the whole execution.
+     * The state of the engine is unknown afterwards, its session is stopped instead of reused.
+     */
+    private static final class ScannerCancelledError extends Error {
+        ScannerCancelledError() {
+            super("Analysis cancelled", null, false, false);
+        }
+    }
+
+    private static void startWorkerScanner(
+            @NotNull Project project,
+            @NotNull Map<String, String> taskProperties,
+            @NotNull LogOutputImpl logOutput,
+            @NotNull AnalysisCancellation cancellation) {
+        Map<String, String> globalProperties = ScannerSession.createGlobalProperties(project, SettingsUtils.getSonarQubeConnection(project));
+        ScannerWorkerService workerService = ScannerWorkerService.getInstance();
+        ScannerWorkerProcess worker = workerService.acquire();
+        Runnable killWorker = worker::kill;
+        cancellation.onCancel(killWorker);
+        boolean succeeded = false;
+        logOutput.setReportStreamed(true);
+        try {
+            worker.execute(globalProperties, taskProperties, new ScannerWorkerProcess.Listener() {
+                @Override
+                public void log(String formattedMessage, LogOutput.Level level) {
+                    logOutput.log(formattedMessage, level);
+                }
+
+                @Override
+                public void component(ReportComponent component) {
+                    logOutput.componentDecoded(component);
+                }
+            });
+            succeeded = true;
+        } catch (RuntimeException e) {
+            if (!cancellation.isCancelled()) {
+                throw e;
+            }
+        } finally {
+            cancellation.removeCallback(killWorker);
+            workerService.release(worker, succeeded && !cancellation.isCancelled());
+        }
+        // 取消时同样发布已经收到的组件
+        logOutput.streamFinished();
+        if (cancellation.isCancelled()) {
+            throw new ProcessCanceledException();
+        }
     }
 
 }
@@ -21,16 +21,28 @@
 
 package com.yujunyang.intellij.plugin.sonar.core;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
 import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
 import com.yujunyang.intellij.plugin.sonar.common.LogUtils;
 import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
 import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
 import com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService;
+import com.yujunyang.intellij.plugin.sonar.worker.ReportComponent;
+import com.yujunyang.intellij.plugin.sonar.worker.ScannerWorkerMain;
 import org.sonarsource.scanner.api.LogOutput;
 
 import static java.util.regex.Pattern.CASE_INSENSITIVE;
@@ -38,16 +50,140 @@ import static java.util.regex.Pattern.CASE_INSENSITIVE;
 public class LogOutputImpl implements LogOutput {
     private static final String PROFILE_LANGUAGE_REGEX = "Quality\\s*profile\\s*for\\s*(.+?):";
     private static final Pattern PROFILE_LANGUAGE_PATTERN = Pattern.compile(PROFILE_LANGUAGE_REGEX, CASE_INSENSITIVE);
+    /**
+     * Files of the components decoded by the scanner worker process published at a time, at least every
+     * {@link #STREAMED_BATCH_MILLIS}.
+     */
+    private static final int STREAMED_BATCH_SIZE = 256;
+    private static final long STREAMED_BATCH_MILLIS = 250;
 
     private final Project project;
+    private final AnalyzeScope analyzeScope;
+    private final String workingDirectory;
+    private final boolean partial;
+    private final String moduleName;
+    private final String logPrefix;
+    private final AnalysisCancellation cancellation;
+    private final AtomicBoolean reportPublished;
+    private final CountDownLatch reportPublishedLatch;
+    private volatile boolean reportGenerated;
+    private volatile boolean reportParsed;
+    private volatile boolean reportStreamed;
+    private Report streamedReport;
+    private final Map<PsiFile, List<AbstractIssue>> streamedBatch = new LinkedHashMap<>();
+    private long streamedBatchTime;
+    private volatile AnalysisPhaseTracker phaseTracker;
+    private volatile SensorProfile sensorProfile;
 
 
-    public LogOutputImpl(Project project) {
+    /**
+     * @param workingDirectory absolute path of the working directory of the scanner execution
+     * @param partial the report is one of several reports of the same analysis, its results are added to the cache
+     */
+    public LogOutputImpl(Project project, AnalyzeScope analyzeScope, String workingDirectory, boolean partial, AnalysisCancellation cancellation) {
         this.project = project;
+        this.analyzeScope = analyzeScope;
+        this.workingDirectory = workingDirectory;
+        this.partial = partial;
+        this.cancellation = cancellation;
+        this.moduleName = partial && analyzeScope.getModule() != null ? analyzeScope.getModule().getName() : null;
+        this.logPrefix = moduleName != null ? "[" + moduleName + "] " : "";
+        reportPublished = new AtomicBoolean();
+        reportPublishedLatch = new CountDownLatch(1);
+    }
+
+    public void setPhaseTracker(AnalysisPhaseTracker phaseTracker) {
+        this.phaseTracker = phaseTracker;
+    }
+
+    public void setSensorProfile(SensorProfile sensorProfile) {
+        this.sensorProfile = sensorProfile;
+    }
+
+    public boolean isReportParsed() {
+        return reportParsed;
+    }
+
+    /**
+     * The scanner has written its report, what is left is the (interruptible) parsing of it.
+     */
+    public boolean isReportGenerated() {
+        return reportGenerated;
+    }
+
+    /**
+     * Wait for the report being parsed when cancelled after it was generated, so that the already decoded
+     * components are kept.
+     */
+    public boolean awaitReportPublished(long timeout, TimeUnit unit) throws InterruptedException {
+        return reportPublishedLatch.await(timeout, unit);
+    }
+
+    /**
+     * The report is decoded by the scanner worker process and passed by {@link #componentDecoded(ReportComponent)},
+     * it is not copied nor parsed here.
+     */
+    public void setReportStreamed(boolean reportStreamed) {
+        this.reportStreamed = reportStreamed;
+    }
+
+    public void componentDecoded(ReportComponent component) {
+        if (streamedReport == null) {
+            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.start"), Level.INFO);
+            streamedReport = new Report(project);
+            streamedBatchTime = System.currentTimeMillis();
+        }
+        PsiFile psiFile = streamedReport.addComponent(component);
+        if (psiFile != null) {
+            streamedBatch.put(psiFile, streamedReport.getIssues().get(psiFile));
+        }
+        if (streamedBatch.size() >= STREAMED_BATCH_SIZE || System.currentTimeMillis() - streamedBatchTime >= STREAMED_BATCH_MILLIS) {
+            flushStreamedBatch();
+        }
+    }
+
+    private void flushStreamedBatch() {
+        if (!streamedBatch.isEmpty()) {
+            batchParsed(streamedReport, new LinkedHashMap<>(streamedBatch));
+            streamedBatch.clear();
+        }
+        streamedBatchTime = System.currentTimeMillis();
+    }
+
+    public void streamFinished() {
+        try {
+            if (streamedReport != null) {
+                flushStreamedBatch();
+            }
+            publishReport(streamedReport == null ? new Report(project) : streamedReport);
+            reportParsed = !cancellation.isCancelled();
+            if (reportParsed) {
+                MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.success"), Level.INFO);
+            }
+        } catch (Exception e) {
+            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.failed", LogUtils.formatException(e)), Level.ERROR);
+        } finally {
+            streamedReport = null;
+            streamedBatch.clear();
+        }
     }
 
     @Override
     public void log(String formattedMessage, Level level) {
+        // 取消后被放弃的扫描线程可能仍在输出，忽略
+        if (cancellation.isCancelled() && !reportGenerated) {
+            return;
+        }
+
+        AnalysisPhaseTracker tracker = phaseTracker;
+        if (tracker != null) {
+            tracker.logged(formattedMessage);
+        }
+        SensorProfile profile = sensorProfile;
+        if (profile != null) {
+            profile.logged(moduleName, formattedMessage);
+        }
+
          if (formattedMessage.startsWith("Quality profile for ")) {
              Matcher matcher = PROFILE_LANGUAGE_PATTERN.matcher(formattedMessage);
              if (matcher.find()) {
@@ -56,22 +192,16 @@ public class LogOutputImpl implements LogOutput {
              }
          }
 
-        if (formattedMessage.startsWith("Analysis report generated in")) {
-            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.copy.start"), Level.INFO);
-            ReportUtils.copyReportDir(project);
-            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.copy.success"), Level.INFO);
+        if (!reportStreamed && formattedMessage.startsWith(ScannerWorkerMain.REPORT_GENERATED_LOG_PREFIX)) {
+            reportGenerated = true;
+            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.snapshot.start"), Level.INFO);
+            ReportUtils.snapshotReportDir(workingDirectory);
+            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.snapshot.success"), Level.INFO);
 
             FutureTask<Report> task = new FutureTask<>(() -> {
                 MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.start"), Level.INFO);
-                Report report = ReportUtils.createReport(project);
-                ProblemCacheService problemCacheService = ProblemCacheService.getInstance(project);
-                problemCacheService.setIssues(report.getIssues());
-                problemCacheService.setStats(
-                        report.getBugCount(),
-                        report.getCodeSmellCount(),
-                        report.getVulnerabilityCount(),
-                        report.getDuplicatedBlocksCount(),
-                        report.getSecurityHotSpotCount());
+                Report report = ReportUtils.createReport(project, workingDirectory, cancellation, this::batchParsed);
+                publishReport(report);
                 return report;
             });
 
@@ -79,12 +209,17 @@ public class LogOutputImpl implements LogOutput {
 
             try {
                 task.get();
-                MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.success"), Level.INFO);
+                reportParsed = !cancellation.isCancelled();
+                if (reportParsed) {
+                    MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.success"), Level.INFO);
+                }
             } catch (Exception e) {
                 // TODO:log中抛出的异常并不会被外层捕获
                 MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.report.parse.failed", LogUtils.formatException(e)), Level.ERROR);
                 // throw new RuntimeException("报告解析出错: " + e.getMessage());
 
+            } finally {
+                reportPublishedLatch.countDown();
             }
         }
         EventDispatchThreadHelper.invokeLater(() -> {
@@ -92,11 +227,61 @@ public class LogOutputImpl implements LogOutput {
 //            if (level == Level.ERROR) {
 //                BalloonTipFactory.showToolWindowErrorNotifier(project, SonarScannerStarter.createErrorInfo(formattedMessage).toString());
 //            }
-            MessageBusManager.publishLog(project, formattedMessage, level);
+            MessageBusManager.publishLog(project, logPrefix + formattedMessage, level);
         });
 
 
 
     }
 
+    /**
+     * Publish the issues of the files parsed so far, before the whole report is parsed. The complete results are
+     * published by {@link #publishReport(Report)}, which also removes the results of the analyzed files without issues
+     * in incremental analysis.
+     */
+    private void batchParsed(Report report, Map<PsiFile, List<AbstractIssue>> batchIssues) {
+        if (reportPublished.get()) {
+            return;
+        }
+        ProblemCacheService problemCacheService = ProblemCacheService.getInstance(project);
+        problemCacheService.setIssues(new ConcurrentHashMap<>(batchIssues));
+        if (!partial && !analyzeScope.isIncremental()) {
+            problemCacheService.setStats(
+                    report.getBugCount(),
+                    report.getCodeSmellCount(),
+                    report.getVulnerabilityCount(),
+                    report.getDuplicatedBlocksCount(),
+                    report.getSecurityHotSpotCount());
+        }
+        MessageBusManager.publishIssuesParsedToEDT(project, new ArrayList<>(batchIssues.keySet()));
+    }
+
+    private void publishReport(Report report) {
+        // 取消时已解析的部分结果与正常结束只能发布一次
+        if (!reportPublished.compareAndSet(false, true)) {
+            return;
+        }
+        ProblemCacheService problemCacheService = ProblemCacheService.getInstance(project);
+        if (partial) {
+            problemCacheService.setIssues(report.getIssues());
+            problemCacheService.addStats(
+                    report.getBugCount(),
+                    report.getCodeSmellCount(),
+                    report.getVulnerabilityCount(),
+                    report.getDuplicatedBlocksCount(),
+                    report.getSecurityHotSpotCount());
+        } else if (analyzeScope.isIncremental()) {
+            ApplicationManager.getApplication().runReadAction(() -> problemCacheService.mergeIssues(analyzeScope, report.getIssues()));
+        } else {
+            problemCacheService.setRuleProfileTier(analyzeScope.getRuleProfileTier());
+            problemCacheService.setIssues(report.getIssues());
+            problemCacheService.setStats(
+                    report.getBugCount(),
+                    report.getCodeSmellCount(),
+                    report.getVulnerabilityCount(),
+                    report.getDuplicatedBlocksCount(),
+                    report.getSecurityHotSpotCount());
+        }
+    }
+
 }
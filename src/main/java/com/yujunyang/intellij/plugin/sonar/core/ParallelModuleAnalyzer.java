@@ -0,0 +1,231 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.compiler.CompileScope;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+import org.jetbrains.annotations.NotNull;
+import org.sonarsource.scanner.api.LogOutput;
+
+/**
+ * Analyzes the project as concurrent per-module scanner executions, each one with its own working directory, sources,
+ * binaries and libraries. The report of each execution is added to {@link com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService}.
+ * In pipelined mode the modules are built in batches in dependency order, and the executions of the modules of a
+ * batch start as soon as it is built while the next batches are still building. Every build session has a fixed cost,
+ * so the batches double in size: the first executions start early and a large project only needs a few builds.
+ */
+public final class ParallelModuleAnalyzer {
+    private final Project project;
+    private final ProgressIndicator indicator;
+    private final AnalysisCancellation cancellation;
+    private final SensorProfile sensorProfile;
+
+    public ParallelModuleAnalyzer(
+            @NotNull Project project,
+            @NotNull ProgressIndicator indicator,
+            @NotNull AnalysisCancellation cancellation,
+            @NotNull SensorProfile sensorProfile) {
+        this.project = project;
+        this.indicator = indicator;
+        this.cancellation = cancellation;
+        this.sensorProfile = sensorProfile;
+    }
+
+    public static boolean isEnabled(@NotNull AnalyzeScope analyzeScope) {
+        return WorkspaceSettings.getInstance().parallelModuleAnalysis && AnalyzeScope.ScopeType.PROJECT_FILES.equals(analyzeScope.getType());
+    }
+
+    /**
+     * The project is not built before the analysis starts, {@link #analyze(int, boolean)} builds the modules itself.
+     */
+    public static boolean isPipelined(@NotNull AnalyzeScope analyzeScope) {
+        return isEnabled(analyzeScope) && WorkspaceSettings.getInstance().pipelinedModuleBuild;
+    }
+
+    /**
+     * Blocking until all executions finished.
+     *
+     * @param maxScanners max concurrent scanner executions, the slots granted by
+     *                    {@link com.yujunyang.intellij.plugin.sonar.service.AnalysisGovernor}
+     * @param pipelined   build each module before starting its execution
+     * @return true if all modules were built and the reports of all modules were parsed
+     */
+    public boolean analyze(int maxScanners, boolean pipelined) throws Exception {
+        List<Module> modules = getModulesWithSources();
+        if (modules.isEmpty()) {
+            return true;
+        }
+
+        int parallelism = Math.max(1, Math.min(maxScanners, modules.size()));
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("SonarAnalyzer Module Scanner", parallelism);
+        AtomicInteger finishedCount = new AtomicInteger();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        boolean allBuilt = true;
+        try {
+            for (List<Module> batch : pipelined ? createBuildBatches(modules, parallelism) : Collections.singletonList(modules)) {
+                if (pipelined && !build(batch)) {
+                    // 后续模块可能依赖编译失败的模块，不再继续
+                    MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.pipelined.buildFailed", batch.get(0).getName(), batch.size()), LogOutput.Level.ERROR);
+                    allBuilt = false;
+                    break;
+                }
+                for (Module module : batch) {
+                    futures.add(executor.submit(() -> {
+                        cancellation.checkCancelled();
+                        AnalyzeScope moduleScope = new AnalyzeScope(project, AnalyzeScope.ScopeType.MODULE_FILES, module);
+                        String workingDirectory = ReportUtils.createWorkingDir(project, module);
+                        LogOutputImpl logOutput = new LogOutputImpl(project, moduleScope, workingDirectory, true, cancellation);
+                        logOutput.setSensorProfile(sensorProfile);
+                        try {
+                            EmbeddedScannerHelper.startEmbeddedScanner(project, moduleScope, workingDirectory, logOutput, cancellation);
+                        } finally {
+                            indicator.setText2(finishedCount.incrementAndGet() + "/" + modules.size() + " modules");
+                        }
+                        return logOutput.isReportParsed();
+                    }));
+                }
+            }
+
+            boolean allParsed = true;
+            Exception firstException = null;
+            for (Future<Boolean> future : futures) {
+                try {
+                    allParsed &= awaitUnlessCancelled(future);
+                } catch (ExecutionException e) {
+                    allParsed = false;
+                    if (firstException == null) {
+                        firstException = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            if (firstException != null) {
+                throw firstException;
+            }
+            return allBuilt && allParsed;
+        } finally {
+            // 不中断正在执行的任务，它们要等扫描真正停止后才返回
+            executor.shutdown();
+            if (cancellation.isCancelled()) {
+                awaitStopped(futures);
+            }
+        }
+    }
+
+    /**
+     * Wait for the started executions after a cancellation, each one ends within the stop timeout of
+     * {@link EmbeddedScannerHelper} or is abandoned. The executions not started yet end at once.
+     */
+    private static void awaitStopped(List<Future<Boolean>> futures) {
+        for (Future<Boolean> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException | CancellationException ignored) {
+                // 取消后的异常已无意义
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Split the modules sorted in dependency order into batches of {@code firstSize}, then twice, four times... as
+     * many modules. The modules of a batch only depend on the modules of the same or of the previous batches.
+     */
+    private static List<List<Module>> createBuildBatches(List<Module> modules, int firstSize) {
+        List<List<Module>> ret = new ArrayList<>();
+        int size = Math.max(1, firstSize);
+        for (int from = 0; from < modules.size(); from += size, size *= 2) {
+            ret.add(modules.subList(from, Math.min(from + size, modules.size())));
+        }
+        return ret;
+    }
+
+    /**
+     * Build the modules and the modules they depend on in one build session, blocking until the build finished.
+     *
+     * @return false if the build was aborted or failed
+     */
+    private boolean build(List<Module> modules) throws Exception {
+        cancellation.checkCancelled();
+        CompilerManager compilerManager = CompilerManager.getInstance(project);
+        CompileScope compileScope = ReadAction.compute(() -> compilerManager.createModulesCompileScope(modules.toArray(Module.EMPTY_ARRAY), true));
+        if (CompilePlanner.isUpToDate(compilerManager, compileScope)) {
+            return true;
+        }
+
+        indicator.setText2(ResourcesLoader.getString("analysis.pipelined.building", modules.get(0).getName(), modules.size()));
+        CompletableFuture<Boolean> built = new CompletableFuture<>();
+        EventDispatchThreadHelper.invokeLater(() -> compilerManager.make(compileScope,
+                (aborted, errors, warnings, compileContext) -> built.complete(!aborted && errors == 0)));
+        return awaitUnlessCancelled(built);
+    }
+
+    private boolean awaitUnlessCancelled(Future<Boolean> future) throws Exception {
+        while (true) {
+            cancellation.checkCancelled();
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+                // 继续检查是否取消
+            }
+        }
+    }
+
+    private List<Module> getModulesWithSources() {
+        return ApplicationManager.getApplication().runReadAction((Computable<List<Module>>) () -> {
+            List<Module> ret = new ArrayList<>();
+            // 按依赖顺序，被依赖的模块在前
+            for (Module module : ModuleManager.getInstance(project).getSortedModules()) {
+                if (ModuleRootManager.getInstance(module).getSourceRoots(false).length > 0) {
+                    ret.add(module);
+                }
+            }
+            return ret;
+        });
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.yujunyang.intellij.plugin.sonar.config.ProjectSettings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reduced profile for interactive and automatically triggered analyses, trading coverage for latency: the duplication
+ * detection can be skipped and {@link ProjectSettings#quickProfileProperties} are added to lower the effort of expensive
+ * sensors or skip them. Only what the sensors do not compute saves time, ignoring issues would not.
+ */
+public final class QuickProfile {
+    private QuickProfile() {
+    }
+
+    public static boolean isEnabled(@NotNull Project project) {
+        return ProjectSettings.getInstance(project).quickProfileEnabled;
+    }
+
+    /**
+     * Adds the quick profile to the task properties, after the properties of the settings.
+     */
+    public static void apply(@NotNull Project project, @NotNull Map<String, String> props) {
+        ProjectSettings projectSettings = ProjectSettings.getInstance(project);
+        if (projectSettings.quickProfileSkipCpd) {
+            props.put("sonar.cpd.exclusions", "**/*");
+        }
+
+        for (String property : split(projectSettings.quickProfileProperties, ";")) {
+            int index = property.indexOf('=');
+            if (index > 0) {
+                props.put(property.substring(0, index).trim(), property.substring(index + 1).trim());
+            }
+        }
+    }
+
+    private static List<String> split(String value, String separator) {
+        if (StringUtil.isEmptyOrSpaces(value)) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(value.split(separator)).map(String::trim).filter(n -> !n.isEmpty()).collect(Collectors.toList());
+    }
+}
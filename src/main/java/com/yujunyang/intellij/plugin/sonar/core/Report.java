@@ -21,37 +21,60 @@
 
 package com.yujunyang.intellij.plugin.sonar.core;
 
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiFile;
 import com.yujunyang.intellij.plugin.sonar.api.RulesSearchResponse;
-import com.yujunyang.intellij.plugin.sonar.api.SonarApiImpl;
 import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
 import com.yujunyang.intellij.plugin.sonar.common.exceptions.ApiRequestFailedException;
 import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
 import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
 import com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService;
+import com.yujunyang.intellij.plugin.sonar.service.ReportDecodePoolService;
+import com.yujunyang.intellij.plugin.sonar.service.RuleCacheService;
+import com.yujunyang.intellij.plugin.sonar.worker.ReportComponent;
+import com.yujunyang.intellij.plugin.sonar.worker.ReportDecoder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.sonar.core.util.CloseableIterator;
-import org.sonar.scanner.protocol.output.ScannerReport;
-import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonarsource.scanner.api.LogOutput;
 
 import java.io.File;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Report {
+    /**
+     * Fewer components are built in the calling thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 64;
+    /**
+     * Components decoded, built and passed to the {@link BatchListener} at a time.
+     */
+    private static final int BATCH_SIZE = 256;
+    /**
+     * Components whose files are resolved in one read action. The read action is restarted when a write action comes
+     * in, keep it short so that typing is never blocked by the parsing.
+     */
+    private static final int RESOLVE_BATCH_SIZE = 64;
+
     private final Project project;
-    private final File reportDir;
     private int bugCount;
     private int codeSmellCount;
     private int vulnerabilityCount;
@@ -60,13 +83,46 @@ public class Report {
     private final ConcurrentMap<PsiFile, List<AbstractIssue>> issues;
     private final CopyOnWriteArraySet<String> ignoreRules;
     private int ignoreIssueCount;
+    private final RuleIndex rules;
 
     public Report(@NotNull Project project, @NotNull File reportDir) {
+        this(project, reportDir, () -> false);
+    }
+
+    /**
+     * Stops early when cancelled, the report then only contains the components decoded before.
+     */
+    public Report(@NotNull Project project, @NotNull File reportDir, @NotNull BooleanSupplier cancelled) {
+        this(project, reportDir, cancelled, null);
+    }
+
+    /**
+     * @param batchListener receives the issues of every batch of components as soon as it is parsed
+     */
+    public Report(@NotNull Project project, @NotNull File reportDir, @NotNull BooleanSupplier cancelled, @Nullable BatchListener batchListener) {
+        this(project);
+        ReportDecodePoolService poolService = ReportDecodePoolService.getInstance();
+        ForkJoinPool pool = poolService.acquire();
+        try {
+            ReportDecoder.decode(reportDir, cancelled, pool, BATCH_SIZE, components -> {
+                Map<PsiFile, List<AbstractIssue>> batchIssues = addComponents(components, cancelled, pool);
+                if (batchListener != null && !batchIssues.isEmpty()) {
+                    batchListener.batchParsed(this, batchIssues);
+                }
+            });
+        } finally {
+            poolService.release(pool);
+        }
+    }
+
+    /**
+     * Empty report, components decoded elsewhere (e.g. by the scanner worker process) are added by {@link #addComponent(ReportComponent)}.
+     */
+    public Report(@NotNull Project project) {
         this.project = project;
-        this.reportDir = reportDir;
         issues = new ConcurrentHashMap<>();
         ignoreRules = new CopyOnWriteArraySet<>();
-        analyze();
+        rules = new RuleIndex(getRules());
     }
 
     public int getBugCount() {
@@ -101,175 +157,242 @@ public class Report {
         return ignoreIssueCount;
     }
 
-    private void analyze() {
-        List<RulesSearchResponse.Rule> rules = getRules();
-        List<Integer> componentFileNumbers = getAllComponentFileNumbers();
-        ScannerReportReader reader = new ScannerReportReader(reportDir);
-        for (Integer componentFileNumber : componentFileNumbers) {
-            ScannerReport.Component component = reader.readComponent(componentFileNumber);
-            CloseableIterator<ScannerReport.Issue> reportIssues = reader.readComponentIssues(componentFileNumber);
-            CloseableIterator<ScannerReport.Duplication> reportDuplications = reader.readComponentDuplications(componentFileNumber);
-
-            String projectRelativePath;
-            File file;
-            PsiFile psiFile;
-
-            if (reportIssues.hasNext() || reportDuplications.hasNext()) {
-                projectRelativePath = component.getProjectRelativePath();
-                file = Paths.get(project.getBasePath(), projectRelativePath).toFile();
-                psiFile = IdeaUtils.getPsiFile(project, file);
-
-                if (!issues.containsKey(psiFile)) {
-                    issues.put(psiFile, new ArrayList<>());
-                }
-            } else {
-                continue;
+    /**
+     * Must be called in a background thread without read access, the file is resolved in a short non-blocking read
+     * action.
+     *
+     * @return the file of the component, null if it no longer exists
+     */
+    @Nullable
+    public PsiFile addComponent(@NotNull ReportComponent component) {
+        PsiFile psiFile = ReadAction.nonBlocking(() -> findPsiFile(component))
+                .expireWith(project)
+                .executeSynchronously();
+        // 分析后已删除的文件
+        if (psiFile != null) {
+            merge(buildComponent(psiFile, component));
+        }
+        return psiFile;
+    }
+
+    /**
+     * Same result as {@link #addComponent(ReportComponent)} for every component in order. The files are resolved in
+     * the calling thread by {@link #findPsiFiles(List, BooleanSupplier)}, then the issues of the components are built
+     * on the pool without any lock, with per-component counters reduced in component order.
+     *
+     * @return the issues of the added components by file
+     */
+    private Map<PsiFile, List<AbstractIssue>> addComponents(List<ReportComponent> components, BooleanSupplier cancelled, ForkJoinPool pool) {
+        List<PsiFile> psiFiles = findPsiFiles(components, cancelled);
+
+        IntFunction<ComponentResult> builder = i -> {
+            PsiFile psiFile = psiFiles.get(i);
+            return psiFile == null || cancelled.getAsBoolean() ? null : buildComponent(psiFile, components.get(i));
+        };
+        List<ComponentResult> results;
+        if (psiFiles.size() < PARALLEL_THRESHOLD) {
+            results = IntStream.range(0, psiFiles.size()).mapToObj(builder).collect(Collectors.toList());
+        } else {
+            try {
+                results = pool.submit(() -> IntStream.range(0, psiFiles.size()).parallel().mapToObj(builder).collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new LinkedHashMap<>();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
             }
+        }
 
-            while (reportIssues.hasNext()) {
-                ScannerReport.Issue reportIssue = reportIssues.next();
-                String issueRuleKey = String.format("%s:%s", reportIssue.getRuleRepository(), reportIssue.getRuleKey());
-                RulesSearchResponse.Rule rule = findRule(rules, issueRuleKey);
+        Map<PsiFile, List<AbstractIssue>> ret = new LinkedHashMap<>();
+        for (ComponentResult result : results) {
+            if (result != null) {
+                merge(result);
+                ret.put(result.psiFile, issues.get(result.psiFile));
+            }
+        }
+        return ret;
+    }
 
-                if (rule == null) {
-                    ignoreRules.add(issueRuleKey);
-                    ignoreIssueCount++;
-                    MessageBusManager.publishLogToEDT(project, String.format("Rule[%s] 未获取到, 展示的报告中将忽略此类型相关问题, 在后续插件更新中可能会增加支持", issueRuleKey), LogOutput.Level.ERROR);
-                    continue;
+    /**
+     * Resolve the files of the components in batches of {@link #RESOLVE_BATCH_SIZE}, each in its own cancellable
+     * non-blocking read action, so that pending write actions are never delayed by a large report.
+     *
+     * @return the files in component order (null for the deleted ones), shorter than the components when cancelled
+     */
+    private List<PsiFile> findPsiFiles(List<ReportComponent> components, BooleanSupplier cancelled) {
+        List<PsiFile> ret = new ArrayList<>(components.size());
+        for (int from = 0; from < components.size(); from += RESOLVE_BATCH_SIZE) {
+            List<ReportComponent> batch = components.subList(from, Math.min(from + RESOLVE_BATCH_SIZE, components.size()));
+            try {
+                ret.addAll(ReadAction.nonBlocking(() -> batch.stream().map(this::findPsiFile).collect(Collectors.toList()))
+                        .expireWhen(cancelled)
+                        .expireWith(project)
+                        .executeSynchronously());
+            } catch (ProcessCanceledException e) {
+                // 分析被取消或项目已关闭时停止解析，其他原因的取消继续抛出
+                if (cancelled.getAsBoolean() || project.isDisposed()) {
+                    break;
                 }
+                throw e;
+            }
+        }
+        return ret;
+    }
 
-                boolean ignoreIssue = false;
-                switch (rule.getType()) {
-                    case "BUG":
-                        bugCount++;
-                        break;
-                    case "VULNERABILITY":
-                        vulnerabilityCount++;
-                        break;
-                    case "CODE_SMELL":
-                        codeSmellCount++;
-                        break;
-                    case "SECURITY_HOTSPOT":
-                        securityHotSpotCount++;
-                        break;
-                    default:
-                        ignoreIssue = true;
-                        break;
-                }
+    @Nullable
+    private PsiFile findPsiFile(ReportComponent component) {
+        String projectRelativePath = component.getProjectRelativePath();
+        File file = Paths.get(project.getBasePath(), projectRelativePath).toFile();
+        return IdeaUtils.getPsiFile(project, file);
+    }
 
-                if (ignoreIssue) {
-                    ignoreRules.add(issueRuleKey);
-                    MessageBusManager.publishLogToEDT(project, String.format("Rule[%s] type[%s] 暂未被报告解析程序支持, 展示的报告中将忽略此类型相关问题, 在后续插件更新中可能会增加支持", issueRuleKey, rule.getType()), LogOutput.Level.ERROR);
-                    continue;
-                }
+    private void merge(ComponentResult result) {
+        issues.computeIfAbsent(result.psiFile, n -> new ArrayList<>()).addAll(result.issues);
+        bugCount += result.bugCount;
+        codeSmellCount += result.codeSmellCount;
+        vulnerabilityCount += result.vulnerabilityCount;
+        duplicatedBlocksCount += result.duplicatedBlocksCount;
+        securityHotSpotCount += result.securityHotSpotCount;
+        ignoreIssueCount += result.ignoreIssueCount;
+        ignoreRules.addAll(result.ignoreRules);
+        result.errorLogs.forEach(n -> MessageBusManager.publishLogToEDT(project, n, LogOutput.Level.ERROR));
+    }
 
-                // 构造函数不再使用TextRange传offset，因为可能Sonar提供的TextRange中startOffset会大于endOffset，创建TextRange时将输出一条error提示offset范围异常
-                Issue issue = new Issue(
-                        psiFile,
-                        reportIssue.getRuleRepository(),
-                        reportIssue.getRuleKey(),
-                        reportIssue.getMsg(),
-                        reportIssue.getSeverity().toString(),
-                        reportIssue.getTextRange().getStartLine(),
-                        reportIssue.getTextRange().getEndLine(),
-                        reportIssue.getTextRange().getStartOffset(),
-                        reportIssue.getTextRange().getEndOffset(),
-                        rule.getType(),
-                        rule.getName(),
-                        rule.getHtmlDesc());
-
-                issues.get(psiFile).add(issue);
+    /**
+     * Thread safe, does not access the PSI.
+     */
+    private ComponentResult buildComponent(@NotNull PsiFile psiFile, @NotNull ReportComponent component) {
+        ComponentResult ret = new ComponentResult(psiFile);
+        for (ReportComponent.ComponentIssue reportIssue : component.getIssues()) {
+            RulesSearchResponse.Rule rule = rules.find(reportIssue.getRuleRepository(), reportIssue.getRuleKey());
+
+            if (rule == null) {
+                String issueRuleKey = reportIssue.getRuleRepository() + ":" + reportIssue.getRuleKey();
+                ret.ignoreRules.add(issueRuleKey);
+                ret.ignoreIssueCount++;
+                ret.errorLogs.add(String.format("Rule[%s] 未获取到, 展示的报告中将忽略此类型相关问题, 在后续插件更新中可能会增加支持", issueRuleKey));
+                continue;
             }
 
-            while (reportDuplications.hasNext()) {
-                String issueRuleKey = String.format("%s:%s", "common-java", "DuplicatedBlocks");
-                RulesSearchResponse.Rule rule = findRule(rules, issueRuleKey);
+            boolean ignoreIssue = false;
+            switch (rule.getType()) {
+                case "BUG":
+                    ret.bugCount++;
+                    break;
+                case "VULNERABILITY":
+                    ret.vulnerabilityCount++;
+                    break;
+                case "CODE_SMELL":
+                    ret.codeSmellCount++;
+                    break;
+                case "SECURITY_HOTSPOT":
+                    ret.securityHotSpotCount++;
+                    break;
+                default:
+                    ignoreIssue = true;
+                    break;
+            }
 
-                ScannerReport.Duplication duplication = reportDuplications.next();
+            if (ignoreIssue) {
+                String issueRuleKey = reportIssue.getRuleRepository() + ":" + reportIssue.getRuleKey();
+                ret.ignoreRules.add(issueRuleKey);
+                ret.errorLogs.add(String.format("Rule[%s] type[%s] 暂未被报告解析程序支持, 展示的报告中将忽略此类型相关问题, 在后续插件更新中可能会增加支持", issueRuleKey, rule.getType()));
+                continue;
+            }
 
-                if (rule == null) {
-                    ignoreRules.add(issueRuleKey);
-                    ignoreIssueCount++;
-                    MessageBusManager.publishLogToEDT(project, String.format("Rule[%s] 未获取到, 展示的报告中将忽略此类型相关问题, 在后续插件更新中可能会增加支持", issueRuleKey), LogOutput.Level.ERROR);
-                    continue;
-                }
+            // 构造函数不再使用TextRange传offset，因为可能Sonar提供的TextRange中startOffset会大于endOffset，创建TextRange时将输出一条error提示offset范围异常
+            Issue issue = new Issue(
+                    psiFile,
+                    reportIssue.getRuleRepository(),
+                    reportIssue.getRuleKey(),
+                    reportIssue.getMsg(),
+                    reportIssue.getSeverity(),
+                    reportIssue.getStartLine(),
+                    reportIssue.getEndLine(),
+                    reportIssue.getStartOffset(),
+                    reportIssue.getEndOffset(),
+                    rule.getType(),
+                    rule.getName(),
+                    rule.getHtmlDesc());
+
+            ret.issues.add(issue);
+        }
 
-                boolean currentFileNotExistDuplicatedBlocksIssue = issues.get(psiFile).stream().filter(n -> n.ruleKey.equalsIgnoreCase("DuplicatedBlocks")).findFirst().orElse(null) == null;
-                if (currentFileNotExistDuplicatedBlocksIssue) {
-                    codeSmellCount++;
-                }
+        for (ReportComponent.ComponentDuplication duplication : component.getDuplications()) {
+            RulesSearchResponse.Rule rule = rules.find("common-java", "DuplicatedBlocks");
 
-                DuplicatedBlocksIssue issue = new DuplicatedBlocksIssue(
-                        psiFile,
-                        "common-java",
-                        "DuplicatedBlocks",
-                        rule.getSeverity(),
-                        rule.getType(),
-                        rule.getName(),
-                        rule.getHtmlDesc(),
-                        duplication.getOriginPosition().getStartLine(),
-                        duplication.getOriginPosition().getEndLine()
-                );
-                issues.get(psiFile).add(issue);
-                duplicatedBlocksCount++;
-
-                boolean existDuplicateInSameFile = false;
-                for (ScannerReport.Duplicate d : duplication.getDuplicateList()) {
-                    DuplicatedBlocksIssue.Duplicate duplicate = new DuplicatedBlocksIssue.Duplicate(
-                            d.getOtherFileRef() == 0 ? "" : reader.readComponent(d.getOtherFileRef()).getProjectRelativePath(),
-                            d.getRange().getStartLine(),
-                            d.getRange().getEndLine()
-                    );
-                    issue.addDuplicate(duplicate);
-                    boolean duplicateInSameFile = d.getOtherFileRef() == 0;
-                    if (duplicateInSameFile) {
-                        existDuplicateInSameFile = true;
-                    }
-                }
+            if (rule == null) {
+                String issueRuleKey = "common-java:DuplicatedBlocks";
+                ret.ignoreRules.add(issueRuleKey);
+                ret.ignoreIssueCount++;
+                ret.errorLogs.add(String.format("Rule[%s] 未获取到, 展示的报告中将忽略此类型相关问题, 在后续插件更新中可能会增加支持", issueRuleKey));
+                continue;
+            }
+
+            boolean currentFileNotExistDuplicatedBlocksIssue = ret.issues.stream().filter(n -> n.ruleKey.equalsIgnoreCase("DuplicatedBlocks")).findFirst().orElse(null) == null;
+            if (currentFileNotExistDuplicatedBlocksIssue) {
+                ret.codeSmellCount++;
+            }
 
-                if (existDuplicateInSameFile) {
-                    DuplicatedBlocksIssue.Duplicate duplicateUseCurrentBlock = new DuplicatedBlocksIssue.Duplicate(
-                            "",
-                            issue.getLineStart(),
-                            issue.getLineEnd()
-                    );
-                    issue.getDuplicates().forEach(d -> {
-                        if (StringUtil.isEmpty(d.path())) {
-                            DuplicatedBlocksIssue additionalIssue = new DuplicatedBlocksIssue(
-                                    psiFile,
-                                    "common-java",
-                                    "DuplicatedBlocks",
-                                    rule.getSeverity(),
-                                    rule.getType(),
-                                    rule.getName(),
-                                    rule.getHtmlDesc(),
-                                    d.startLine(),
-                                    d.endLine()
-                            );
-                            additionalIssue.addDuplicate(duplicateUseCurrentBlock);
-                            List<DuplicatedBlocksIssue.Duplicate> otherDuplicates = issue.getDuplicates().stream()
-                                    .filter(n -> !StringUtil.isEmpty(n.path()) || n.startLine() != d.startLine() || n.endLine() != d.endLine())
-                                    .collect(Collectors.toList());
-                            additionalIssue.addDuplicates(otherDuplicates);
-                            issues.get(psiFile).add(additionalIssue);
-                            duplicatedBlocksCount++;
-                        }
-                    });
+            DuplicatedBlocksIssue issue = new DuplicatedBlocksIssue(
+                    psiFile,
+                    "common-java",
+                    "DuplicatedBlocks",
+                    rule.getSeverity(),
+                    rule.getType(),
+                    rule.getName(),
+                    rule.getHtmlDesc(),
+                    duplication.getStartLine(),
+                    duplication.getEndLine()
+            );
+            ret.issues.add(issue);
+            ret.duplicatedBlocksCount++;
+
+            boolean existDuplicateInSameFile = false;
+            for (ReportComponent.ComponentDuplicate d : duplication.getDuplicates()) {
+                DuplicatedBlocksIssue.Duplicate duplicate = new DuplicatedBlocksIssue.Duplicate(
+                        d.getPath(),
+                        d.getStartLine(),
+                        d.getEndLine()
+                );
+                issue.addDuplicate(duplicate);
+                boolean duplicateInSameFile = StringUtil.isEmpty(d.getPath());
+                if (duplicateInSameFile) {
+                    existDuplicateInSameFile = true;
                 }
             }
-        }
-    }
 
-    private List<Integer> getAllComponentFileNumbers() {
-        List<Integer> componentFileNumbers = new ArrayList<>();
-        reportDir.listFiles((dir, name) -> {
-            if (name.startsWith("component-")) {
-                componentFileNumbers.add(Integer.parseInt(name.split("-")[1].replace(".pb", "")));
-                return true;
+            if (existDuplicateInSameFile) {
+                DuplicatedBlocksIssue.Duplicate duplicateUseCurrentBlock = new DuplicatedBlocksIssue.Duplicate(
+                        "",
+                        issue.getLineStart(),
+                        issue.getLineEnd()
+                );
+                issue.getDuplicates().forEach(d -> {
+                    if (StringUtil.isEmpty(d.path())) {
+                        DuplicatedBlocksIssue additionalIssue = new DuplicatedBlocksIssue(
+                                psiFile,
+                                "common-java",
+                                "DuplicatedBlocks",
+                                rule.getSeverity(),
+                                rule.getType(),
+                                rule.getName(),
+                                rule.getHtmlDesc(),
+                                d.startLine(),
+                                d.endLine()
+                        );
+                        additionalIssue.addDuplicate(duplicateUseCurrentBlock);
+                        List<DuplicatedBlocksIssue.Duplicate> otherDuplicates = issue.getDuplicates().stream()
+                                .filter(n -> !StringUtil.isEmpty(n.path()) || n.startLine() != d.startLine() || n.endLine() != d.endLine())
+                                .collect(Collectors.toList());
+                        additionalIssue.addDuplicates(otherDuplicates);
+                        ret.issues.add(additionalIssue);
+                        ret.duplicatedBlocksCount++;
+                    }
+                });
             }
-            return false;
-        });
-        return componentFileNumbers;
+        }
+        return ret;
     }
 
     private List<RulesSearchResponse.Rule> getRules() {
@@ -281,18 +404,36 @@ public class Report {
             } else {
                 languages.addAll(WorkspaceSettings.getInstance().languages);
             }
-            return new SonarApiImpl(project).getRules(new ArrayList<>(languages));
+            return RuleCacheService.getInstance().getRules(project, languages);
         } catch (ApiRequestFailedException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
     }
 
-    private @Nullable RulesSearchResponse.Rule findRule(List<RulesSearchResponse.Rule> rules, String ruleKey) {
-        RulesSearchResponse.Rule rule = rules.stream().filter(n -> n.getKey().equalsIgnoreCase(ruleKey)).findFirst().orElse(null);
-        return rule;
-        // if (rule == null) {
-        //     throw new RuntimeException(String.format("No rule named [%s] was found", ruleKey));
-        // }
-        // return rule;
+    public interface BatchListener {
+        /**
+         * Invoked in the parsing thread, the counters of the report include the batch.
+         */
+        void batchParsed(@NotNull Report report, @NotNull Map<PsiFile, List<AbstractIssue>> batchIssues);
+    }
+
+    /**
+     * Issues and counters of one component.
+     */
+    private static final class ComponentResult {
+        private final PsiFile psiFile;
+        private final List<AbstractIssue> issues = new ArrayList<>();
+        private final Set<String> ignoreRules = new LinkedHashSet<>();
+        private final List<String> errorLogs = new ArrayList<>();
+        private int bugCount;
+        private int codeSmellCount;
+        private int vulnerabilityCount;
+        private int duplicatedBlocksCount;
+        private int securityHotSpotCount;
+        private int ignoreIssueCount;
+
+        private ComponentResult(PsiFile psiFile) {
+            this.psiFile = psiFile;
+        }
     }
 }
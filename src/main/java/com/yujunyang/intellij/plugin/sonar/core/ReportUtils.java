@@ -26,32 +26,121 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
 
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 
-import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.text.StringUtil;
 import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.common.exceptions.ConfigException;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
 import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
 
 public final class ReportUtils {
-    private static final String ORIGINAL_REPORT_DIR = ".idea/SonarAnalyzer/.scannerwork/scanner-report";
-    private static final String TARGET_REPORT_DIR = ".idea/SonarAnalyzer/.scannerwork/scanner-report-copy";
+    /**
+     * Working directory of the plugin versions running all executions in one directory, only deleted now.
+     */
+    private static final String LEGACY_WORKING_DIR = ".idea/SonarAnalyzer/.scannerwork";
+    private static final String DEFAULT_WORKING_DIR_ROOT = ".idea/SonarAnalyzer/.scannerwork-runs";
+    private static final String ORIGINAL_REPORT_DIR = "scanner-report";
+    private static final String TARGET_REPORT_DIR = "scanner-report-copy";
 
-    public static void copyReportDir(Project project) {
-        String projectPath = project.getBasePath();
-        Path originalPath = Paths.get(projectPath, ORIGINAL_REPORT_DIR);
-        Path targetPath = Paths.get(projectPath, TARGET_REPORT_DIR);
+    /**
+     * Root of the working directories of the project, {@link WorkspaceSettings#scannerWorkingDirRoot} if set.
+     */
+    public static Path getWorkingDirRoot(Project project) {
+        String root = WorkspaceSettings.getInstance().scannerWorkingDirRoot;
+        if (StringUtil.isEmptyOrSpaces(root)) {
+            return Paths.get(IdeaUtils.getProjectPath(project).getAbsolutePath(), DEFAULT_WORKING_DIR_ROOT);
+        }
+        // 多个项目可共用同一根目录，按项目区分
+        return Paths.get(root.trim(), "SonarAnalyzer", toDirName(project.getName()) + "-" + project.getLocationHash());
+    }
+
+    /**
+     * Create the uniquely named working directory of one scanner execution, it is deleted by
+     * {@link #deleteWorkingDir(String)} when the execution ended.
+     *
+     * @param module the module analyzed by the execution in parallel module analysis, null otherwise
+     * @return absolute path
+     */
+    public static String createWorkingDir(Project project, @Nullable Module module) throws ConfigException {
+        String prefix = module == null ? "run" : toDirName(module.getName());
+        Path workingDir = getWorkingDirRoot(project).resolve(prefix + "-" + UUID.randomUUID());
         try {
-            FileUtils.copyDirectory(new File(originalPath.toUri()), new File(targetPath.toUri()));
+            Files.createDirectories(workingDir);
+        } catch (IOException e) {
+            throw new ConfigException(ResourcesLoader.getString("error.analysis.workingDirectory", workingDir.toString()), e);
+        }
+        return workingDir.toString();
+    }
+
+    private static String toDirName(String name) {
+        return name.replaceAll("[^\\w.-]", "_");
+    }
+
+    /**
+     * Snapshot of the report for parsing: the files are hard linked instead of copied, so only directory entries are
+     * written whatever the size of the report. Files are copied only where hard links are not supported.
+     */
+    public static void snapshotReportDir(String workingDirectory) {
+        Path originalPath = Paths.get(workingDirectory, ORIGINAL_REPORT_DIR);
+        Path targetPath = Paths.get(workingDirectory, TARGET_REPORT_DIR);
+        try (Stream<Path> paths = Files.walk(originalPath)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = targetPath.resolve(originalPath.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    link(path, target);
+                }
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public static void deleteReportDir(Project project) {
-        String projectPath = IdeaUtils.getProjectPath(project).getAbsolutePath();
-        Path targetPath = Paths.get(projectPath, TARGET_REPORT_DIR);
+    private static void link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            // 跨文件系统等情况不支持硬链接，退回复制
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Delete the legacy working directory and the working directories left by the executions started before
+     * {@code before} (e.g. when the IDE was killed during an analysis).
+     */
+    public static void deleteReportDir(Project project, long before) {
+        deleteDir(Paths.get(IdeaUtils.getProjectPath(project).getAbsolutePath(), LEGACY_WORKING_DIR));
+        deleteStaleDirs(getWorkingDirRoot(project).toFile(), before);
+    }
+
+    private static void deleteStaleDirs(File root, long before) {
+        File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            if (dir.getName().startsWith(".")) {
+                // 如暂存class文件的目录，只删除其中过期的子目录
+                deleteStaleDirs(dir, before);
+            } else if (dir.lastModified() < before) {
+                // 只删除本次分析开始前的目录，本次分析的工作目录可能已经创建
+                deleteDir(dir.toPath());
+            }
+        }
+    }
+
+    private static void deleteDir(Path targetPath) {
         if (Files.exists(targetPath)) {
             try {
                 FileUtils.deleteDirectory(targetPath.toFile());
@@ -61,11 +150,19 @@ public final class ReportUtils {
         }
     }
 
-    public static Report createReport(Project project) {
-        return ApplicationManager.getApplication().runReadAction((Computable<Report>) () -> {
-            String projectPath = project.getBasePath();
-            Path reportDirPath = Paths.get(projectPath, TARGET_REPORT_DIR);
-            return new Report(project, reportDirPath.toFile());
-        });
+    /**
+     * Must be called in a background thread without read access: the report is decoded and the rules are fetched
+     * without any lock, only the files of the components are resolved in short read actions.
+     */
+    public static Report createReport(Project project, String workingDirectory, BooleanSupplier cancelled, @Nullable Report.BatchListener batchListener) {
+        Path reportDirPath = Paths.get(workingDirectory, TARGET_REPORT_DIR);
+        return new Report(project, reportDirPath.toFile(), cancelled, batchListener);
+    }
+
+    /**
+     * Delete the whole working directory of a scanner execution.
+     */
+    public static void deleteWorkingDir(String workingDirectory) {
+        deleteDir(Paths.get(workingDirectory));
     }
 }
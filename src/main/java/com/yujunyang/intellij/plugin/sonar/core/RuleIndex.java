@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.yujunyang.intellij.plugin.sonar.api.RulesSearchResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Rules indexed by repository and key, built once per report. Lookups with the exact case of the rule key need neither
+ * the "repository:key" string nor a case conversion, other lookups fall back to the case-normalized key.
+ */
+public final class RuleIndex {
+    private final Map<String, Map<String, RulesSearchResponse.Rule>> rulesByRepository = new HashMap<>();
+    private final Map<String, RulesSearchResponse.Rule> rulesByNormalizedKey = new HashMap<>();
+
+    public RuleIndex(@NotNull List<RulesSearchResponse.Rule> rules) {
+        for (RulesSearchResponse.Rule rule : rules) {
+            String ruleKey = rule.getKey();
+            if (ruleKey == null) {
+                continue;
+            }
+            // 与原先的线性查找一致, 相同的key保留第一个
+            rulesByNormalizedKey.putIfAbsent(ruleKey.toLowerCase(Locale.ROOT), rule);
+            int index = ruleKey.indexOf(':');
+            if (index > 0) {
+                rulesByRepository.computeIfAbsent(ruleKey.substring(0, index), n -> new HashMap<>())
+                        .putIfAbsent(ruleKey.substring(index + 1), rule);
+            }
+        }
+    }
+
+    @Nullable
+    public RulesSearchResponse.Rule find(@NotNull String repository, @NotNull String key) {
+        Map<String, RulesSearchResponse.Rule> repositoryRules = rulesByRepository.get(repository);
+        RulesSearchResponse.Rule rule = repositoryRules == null ? null : repositoryRules.get(key);
+        if (rule != null) {
+            return rule;
+        }
+        return rulesByNormalizedKey.get((repository + ":" + key).toLowerCase(Locale.ROOT));
+    }
+}
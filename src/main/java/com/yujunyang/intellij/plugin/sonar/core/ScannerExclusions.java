@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ContentEntry;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.SourceFolder;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.yujunyang.intellij.plugin.sonar.config.ProjectSettings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.model.JpsElement;
+import org.jetbrains.jps.model.java.JavaResourceRootProperties;
+import org.jetbrains.jps.model.java.JavaSourceRootProperties;
+
+/**
+ * Exclusion patterns (relative to the project base directory) of the files the scanner should not read: the excluded
+ * folders and the generated source roots of the IDE project, and {@link ProjectSettings#exclusionPatterns}.
+ */
+public final class ScannerExclusions {
+    private ScannerExclusions() {
+    }
+
+    @NotNull
+    public static Set<String> create(@NotNull Project project) {
+        Set<String> ret = ReadAction.compute(() -> createFromProjectStructure(project));
+        String exclusionPatterns = ProjectSettings.getInstance(project).exclusionPatterns;
+        if (!StringUtil.isEmptyOrSpaces(exclusionPatterns)) {
+            Arrays.stream(exclusionPatterns.split(","))
+                    .map(String::trim)
+                    .filter(n -> !n.isEmpty())
+                    .forEach(ret::add);
+        }
+        return ret;
+    }
+
+    private static Set<String> createFromProjectStructure(Project project) {
+        Set<String> ret = new LinkedHashSet<>();
+        if (project.isDisposed() || project.getBasePath() == null) {
+            return ret;
+        }
+        VirtualFile baseDir = LocalFileSystem.getInstance().findFileByPath(project.getBasePath());
+        if (baseDir != null) {
+            for (Module module : ModuleManager.getInstance(project).getModules()) {
+                for (ContentEntry contentEntry : ModuleRootManager.getInstance(module).getContentEntries()) {
+                    for (VirtualFile excludeFolder : contentEntry.getExcludeFolderFiles()) {
+                        addDirectory(ret, baseDir, excludeFolder);
+                    }
+                    for (SourceFolder sourceFolder : contentEntry.getSourceFolders()) {
+                        if (isForGeneratedSources(sourceFolder) && sourceFolder.getFile() != null) {
+                            addDirectory(ret, baseDir, sourceFolder.getFile());
+                        }
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static boolean isForGeneratedSources(SourceFolder sourceFolder) {
+        JpsElement properties = sourceFolder.getJpsElement().getProperties();
+        if (properties instanceof JavaSourceRootProperties) {
+            return ((JavaSourceRootProperties) properties).isForGeneratedSources();
+        }
+        if (properties instanceof JavaResourceRootProperties) {
+            return ((JavaResourceRootProperties) properties).isForGeneratedSources();
+        }
+        return false;
+    }
+
+    private static void addDirectory(Set<String> patterns, VirtualFile baseDir, VirtualFile directory) {
+        // 项目目录外的目录不会被扫描, 无需排除
+        String relativePath = VfsUtilCore.getRelativePath(directory, baseDir, '/');
+        if (relativePath == null) {
+            return;
+        }
+        patterns.add(relativePath.isEmpty() ? "**/*" : relativePath + "/**/*");
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.common.SettingsUtils;
+import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sonarsource.scanner.api.EmbeddedScanner;
+import org.sonarsource.scanner.api.LogOutput;
+
+/**
+ * A started {@link EmbeddedScanner} bound to one SonarQube connection and to the global properties it was started with.
+ * <p>
+ * {@link EmbeddedScanner#start()} downloads the engine and loads the analyzer plugins, so a session is kept
+ * alive by {@link com.yujunyang.intellij.plugin.sonar.service.ScannerSessionService} and reused by several
+ * {@link #execute(Map, LogOutput)} calls. A session is used by one analysis at a time.
+ */
+public final class ScannerSession implements ScannerPool.Pooled {
+    private static final Logger LOGGER = Logger.getInstance(ScannerSession.class);
+
+    private final String key;
+    private final long generation;
+    private final SessionLogOutput logOutput;
+    private final EmbeddedScanner scanner;
+    private volatile long lastUsedMillis;
+
+    ScannerSession(@NotNull String key, long generation, @NotNull Map<String, String> globalProperties, @NotNull LogOutput logOutput) {
+        this.key = key;
+        this.generation = generation;
+        this.logOutput = new SessionLogOutput();
+        this.logOutput.setDelegate(logOutput);
+        this.scanner = EmbeddedScanner.create("Intellij Sonar plugin", IdeaUtils.getPluginVersion(), this.logOutput);
+        this.scanner.addGlobalProperties(globalProperties);
+        this.scanner.start();
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    public static ScannerSession start(@NotNull SonarQubeSettings connection, @NotNull Map<String, String> globalProperties, long generation, @NotNull LogOutput logOutput) {
+        return new ScannerSession(keyOf(connection, globalProperties), generation, globalProperties, logOutput);
+    }
+
+    public static String keyOf(@NotNull SonarQubeSettings connection) {
+        return connection.name + "|" + connection.url + "|" + connection.token;
+    }
+
+    /**
+     * Sessions started with other global properties are not reused, {@link EmbeddedScanner#start()} only reads them once.
+     */
+    public static String keyOf(@NotNull SonarQubeSettings connection, @NotNull Map<String, String> globalProperties) {
+        // Map 的 hashCode 与顺序无关，String 的 hashCode 固定，同样的配置总是得到同样的 key
+        return keyOf(connection) + "|" + Integer.toHexString(globalProperties.hashCode());
+    }
+
+    /**
+     * The connection and the sonar properties of the settings, read when the scanner starts (e.g. {@code sonar.userHome},
+     * {@code sonar.scanner.*}, proxy and {@code http.*} settings). The properties of the executions override them.
+     */
+    public static Map<String, String> createGlobalProperties(@NotNull Project project, @NotNull SonarQubeSettings connection) {
+        Map<String, String> props = new HashMap<>();
+        for (Map.Entry<String, String> item : SettingsUtils.getSonarProperties(project).entrySet()) {
+            if (!EmbeddedScannerHelper.EXCLUDED_PROPERTIES.contains(item.getKey())) {
+                props.put(item.getKey(), item.getValue());
+            }
+        }
+        props.put("sonar.host.url", connection.url);
+        props.put("sonar.login", connection.token);
+        return props;
+    }
+
+    public void execute(@NotNull Map<String, String> taskProperties, @NotNull LogOutput logOutput) {
+        this.logOutput.setDelegate(logOutput);
+        try {
+            scanner.execute(taskProperties);
+        } finally {
+            this.logOutput.setDelegate(null);
+            lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            scanner.stop();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to stop SonarScanner session", e);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    /**
+     * The scanner keeps the {@link LogOutput} given at creation, route its messages to the analysis currently using the session.
+     */
+    private static final class SessionLogOutput implements LogOutput {
+        private volatile LogOutput delegate;
+
+        void setDelegate(@Nullable LogOutput delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void log(String formattedMessage, Level level) {
+            LogOutput current = delegate;
+            if (current != null) {
+                current.log(formattedMessage, level);
+            }
+        }
+    }
+}
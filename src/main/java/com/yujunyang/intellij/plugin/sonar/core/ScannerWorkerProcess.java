@@ -0,0 +1,210 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.text.StringUtil;
+import com.yujunyang.intellij.plugin.sonar.common.DefaultObjectMapper;
+import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.common.PluginConstants;
+import com.yujunyang.intellij.plugin.sonar.common.exceptions.ScannerWorkerException;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerPool;
+import com.yujunyang.intellij.plugin.sonar.worker.ReportComponent;
+import com.yujunyang.intellij.plugin.sonar.worker.ScannerWorkerMain;
+import com.yujunyang.intellij.plugin.sonar.worker.WorkerRequest;
+import com.yujunyang.intellij.plugin.sonar.worker.WorkerResponse;
+import org.jetbrains.annotations.NotNull;
+import org.sonarsource.scanner.api.LogOutput;
+
+/**
+ * A scanner worker JVM running {@link ScannerWorkerMain}, so that the analyzers allocate in their own heap and not in
+ * the IDE one. A worker process is used by one analysis at a time.
+ */
+public final class ScannerWorkerProcess implements ScannerPool.Pooled {
+    private static final Logger LOGGER = Logger.getInstance(ScannerWorkerProcess.class);
+
+    private final ObjectMapper objectMapper = DefaultObjectMapper.getObjectMapper();
+    private final Process process;
+    private final BufferedWriter writer;
+    private final BufferedReader reader;
+    private final String vmOptions;
+    private final long generation;
+    private volatile long lastUsedMillis;
+
+    private ScannerWorkerProcess(@NotNull Process process, @NotNull String vmOptions, long generation) {
+        this.process = process;
+        this.vmOptions = vmOptions;
+        this.generation = generation;
+        this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        this.lastUsedMillis = System.currentTimeMillis();
+        ApplicationManager.getApplication().executeOnPooledThread(this::drainErrorStream);
+    }
+
+    public static ScannerWorkerProcess start(@NotNull String vmOptions, long generation) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", SystemInfo.isWindows ? "java.exe" : "java").toString());
+        Arrays.stream(vmOptions.trim().split("\\s+")).filter(StringUtil::isNotEmpty).forEach(command::add);
+        command.add("-cp");
+        command.add(getWorkerClassPath());
+        command.add(ScannerWorkerMain.class.getName());
+        command.add(IdeaUtils.getPluginVersion());
+        try {
+            return new ScannerWorkerProcess(new ProcessBuilder(command).start(), vmOptions, generation);
+        } catch (IOException e) {
+            throw new ScannerWorkerException("Failed to start scanner worker process: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Blocking until the worker finished the execution, components of the report are passed to the listener as soon as decoded.
+     */
+    public void execute(@NotNull Map<String, String> globalProperties, @NotNull Map<String, String> taskProperties, @NotNull Listener listener) {
+        try {
+            WorkerRequest request = new WorkerRequest();
+            request.setType(WorkerRequest.TYPE_EXECUTE);
+            request.setGlobalProperties(globalProperties);
+            request.setTaskProperties(taskProperties);
+            writer.write(objectMapper.writeValueAsString(request));
+            writer.newLine();
+            writer.flush();
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                WorkerResponse response = objectMapper.readValue(line, WorkerResponse.class);
+                switch (response.getType()) {
+                    case WorkerResponse.TYPE_LOG:
+                        listener.log(response.getMessage(), LogOutput.Level.valueOf(response.getLevel()));
+                        break;
+                    case WorkerResponse.TYPE_COMPONENT:
+                        listener.component(response.getComponent());
+                        break;
+                    case WorkerResponse.TYPE_DONE:
+                        return;
+                    case WorkerResponse.TYPE_ERROR:
+                        throw new ScannerWorkerException(response.getMessage());
+                    default:
+                        break;
+                }
+            }
+            throw new ScannerWorkerException("Scanner worker process exited unexpectedly");
+        } catch (IOException e) {
+            throw new ScannerWorkerException("Scanner worker process communication failed: " + e.getMessage(), e);
+        } finally {
+            lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    @Override
+    public void stop() {
+        try {
+            WorkerRequest request = new WorkerRequest();
+            request.setType(WorkerRequest.TYPE_SHUTDOWN);
+            writer.write(objectMapper.writeValueAsString(request));
+            writer.newLine();
+            writer.flush();
+            if (process.waitFor(10, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Failed to shutdown scanner worker process", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        kill();
+    }
+
+    public void kill() {
+        process.destroyForcibly();
+    }
+
+    public String getVmOptions() {
+        return vmOptions;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    private void drainErrorStream() {
+        try (BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = errorReader.readLine()) != null) {
+                LOGGER.debug(line);
+            }
+        } catch (IOException e) {
+            LOGGER.debug(e);
+        }
+    }
+
+    private static String getWorkerClassPath() {
+        IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(PluginId.getId(PluginConstants.PLUGIN_ID));
+        if (plugin == null) {
+            throw new ScannerWorkerException("Plugin " + PluginConstants.PLUGIN_ID + " not found");
+        }
+        Path libDir = plugin.getPluginPath().resolve("lib");
+        File[] jars = libDir.toFile().listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null || jars.length == 0) {
+            throw new ScannerWorkerException("No library found in " + libDir);
+        }
+        return Arrays.stream(jars).map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator));
+    }
+
+    public interface Listener {
+        void log(String formattedMessage, LogOutput.Level level);
+
+        void component(ReportComponent component);
+    }
+}
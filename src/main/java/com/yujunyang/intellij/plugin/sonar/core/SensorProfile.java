@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.yujunyang.intellij.plugin.sonar.config.SensorProfileHistory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collect the sensor timings of one analysis from the scanner log, e.g.
+ * <pre>
+ * Sensor JavaSensor [java]
+ * Sensor JavaSensor [java] (done) | time=12345ms
+ * </pre>
+ * The duplication detection runs after the sensors and is recorded as a sensor named {@link #CPD_EXECUTOR}:
+ * <pre>
+ * CPD Executor Calculating CPD for 1234 files
+ * CPD Executor CPD calculation finished (done) | time=5678ms
+ * </pre>
+ * Shared by the log outputs of all modules when modules are analyzed in parallel.
+ */
+public final class SensorProfile {
+    private static final Pattern SENSOR_DONE_PATTERN = Pattern.compile("^Sensor (.+?)(?: \\[(\\w+)])? \\(done\\) \\| time=(\\d+)ms");
+    private static final String CPD_EXECUTOR = "CPD Executor";
+    private static final Pattern CPD_DONE_PATTERN = Pattern.compile("^" + CPD_EXECUTOR + " .+? \\(done\\) \\| time=(\\d+)ms");
+
+    private final List<SensorProfileHistory.SensorTiming> timings = new ArrayList<>();
+
+    /**
+     * @param module name of the module analyzed by the scanner writing the message, null for a single analysis
+     */
+    public synchronized void logged(@Nullable String module, @NotNull String formattedMessage) {
+        if (formattedMessage.startsWith("Sensor ")) {
+            Matcher matcher = SENSOR_DONE_PATTERN.matcher(formattedMessage);
+            if (matcher.find()) {
+                timings.add(new SensorProfileHistory.SensorTiming(module, matcher.group(1), matcher.group(2), Long.parseLong(matcher.group(3))));
+            }
+        } else if (formattedMessage.startsWith(CPD_EXECUTOR)) {
+            Matcher matcher = CPD_DONE_PATTERN.matcher(formattedMessage);
+            if (matcher.find()) {
+                timings.add(new SensorProfileHistory.SensorTiming(module, CPD_EXECUTOR, null, Long.parseLong(matcher.group(1))));
+            }
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return timings.isEmpty();
+    }
+
+    @NotNull
+    public synchronized SensorProfileHistory.ProfileRun toRun(@NotNull String scopeType) {
+        return new SensorProfileHistory.ProfileRun(System.currentTimeMillis(), scopeType, new ArrayList<>(timings));
+    }
+}
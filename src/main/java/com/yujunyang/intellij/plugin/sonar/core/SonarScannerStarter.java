@@ -30,6 +30,7 @@ import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.compiler.CompileScope;
 import com.intellij.openapi.compiler.CompilerManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.DumbService;
@@ -41,11 +42,18 @@ import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
 import com.yujunyang.intellij.plugin.sonar.common.LogUtils;
 import com.yujunyang.intellij.plugin.sonar.common.SettingsUtils;
 import com.yujunyang.intellij.plugin.sonar.common.exceptions.ConfigException;
+import com.yujunyang.intellij.plugin.sonar.common.exceptions.ScannerWorkerException;
+import com.yujunyang.intellij.plugin.sonar.config.AnalysisHistory;
+import com.yujunyang.intellij.plugin.sonar.config.SensorProfileHistory;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
 import com.yujunyang.intellij.plugin.sonar.extensions.ToolWindowFactoryImpl;
 import com.yujunyang.intellij.plugin.sonar.gui.common.BalloonTipFactory;
 import com.yujunyang.intellij.plugin.sonar.messages.AnalysisAbortingListener;
 import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
 import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+import com.yujunyang.intellij.plugin.sonar.service.AnalysisGovernor;
+import com.yujunyang.intellij.plugin.sonar.service.AnalysisQueueService;
+import com.yujunyang.intellij.plugin.sonar.service.DirtyFileTracker;
 import com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService;
 import org.jetbrains.annotations.NotNull;
 import org.sonarsource.scanner.api.LogOutput;
@@ -67,6 +75,13 @@ public abstract class SonarScannerStarter implements AnalysisAbortingListener {
 
     private final AtomicBoolean cancellingByUser;
 
+    private AnalyzeScope analyzeScope;
+
+    private long dirtyFileSequence;
+
+    private boolean pipelined;
+
+    private volatile AnalysisCancellation cancellation;
 
 
     public SonarScannerStarter(
@@ -97,9 +112,23 @@ public abstract class SonarScannerStarter implements AnalysisAbortingListener {
         MessageBusManager.subscribe(project, this, AnalysisAbortingListener.TOPIC, this);
     }
 
+    /**
+     * Start the analysis, or queue it in {@link AnalysisQueueService} when another analysis of the project is running.
+     */
     public final void start() {
         EventDispatchThreadHelper.checkEDT();
-        ProblemCacheService.getInstance(project).setAnalyzeScope(createAnalyzeScope());
+        analyzeScope = createAnalyzeScope();
+        if (analyzeScope.isEmpty()) {
+            // 例如修改的文件都已删除，或当前编辑器中的文件不属于项目
+            BalloonTipFactory.showToolWindowWarnNotifier(project, ResourcesLoader.getString("analysis.scope.empty"));
+            return;
+        }
+        if (!AnalyzeState.get(project).isIdle()) {
+            AnalysisQueueService.getInstance(project).enqueue(analyzeScope);
+            return;
+        }
+        dirtyFileSequence = DirtyFileTracker.getInstance(project).currentSequence();
+        ProblemCacheService.getInstance(project).setAnalyzeScope(analyzeScope);
         MessageBusManager.publishAnalysisStarted(project);
 
         if (!ApplicationManager.getApplication().isUnitTestMode()) {
@@ -116,51 +145,94 @@ public abstract class SonarScannerStarter implements AnalysisAbortingListener {
             ToolWindowFactoryImpl.showWindowContent(toolWindow, 1);
         }
 
+        pipelined = ParallelModuleAnalyzer.isPipelined(analyzeScope);
+        if (pipelined) {
+            // 各模块在分析过程中逐个编译
+            DumbService.getInstance(project).runWhenSmart(() -> {
+                EventDispatchThreadHelper.checkEDT();
+                startImpl(false);
+            });
+            return;
+        }
+
         final CompilerManager compilerManager = CompilerManager.getInstance(project);
         createCompileScope(compilerManager, compileScope -> {
             if (compileScope != null) {
-                MessageBusManager.publishLog(project, "Start build project [" + project.getName() + "]", LogOutput.Level.INFO);
-
                 finalizeCompileScope(compileScope);
-                compilerManager.make(compileScope, (aborted, errors, warnings, compileContext) -> {
+                // 增量编译检查需要扫描输出目录，放到后台线程执行，避免阻塞EDT
+                ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                    boolean upToDate;
                     try {
-                        ToolWindowFactoryImpl.showWindowContent(ToolWindowFactoryImpl.getWindow(project), 1);
-                        if (aborted) {
-                            MessageBusManager.publishLog(project, "build aborted", LogOutput.Level.ERROR);
-                        }
-                        if (errors > 0) {
-                            MessageBusManager.publishLog(project, "build failed", LogOutput.Level.ERROR);
-                        }
-                        if (aborted || errors > 0) {
-                            MessageBusManager.publishAnalysisFinished(project, new Object(), null);
-                        }
-                        // TODO: 这里原先是要判断了只有设置的是编译后不启动检测才会执行
-                        // 猜测原因是有其他地方设置了编译后自动执行检测，因此防止触发两次
-                        if (!aborted && errors == 0) {
-                            EventDispatchThreadHelper.checkEDT(); // see javadoc of CompileStatusNotification
-                            // Compiler can cause dumb mode, and finished() is invoked inside.
-                            // We need to continue outside dumb mode to make activateToolWindow work f. e.
+                        upToDate = CompilePlanner.isUpToDate(compilerManager, compileScope);
+                    } catch (Exception e) {
+                        LOGGER.warn(e);
+                        upToDate = false;
+                    }
+                    final boolean skipMake = upToDate;
+                    EventDispatchThreadHelper.invokeLater(() -> {
+                        if (skipMake) {
+                            MessageBusManager.publishLog(project, "Build output of [" + project.getName() + "] is up to date, skip build", LogOutput.Level.INFO);
                             DumbService.getInstance(project).runWhenSmart(() -> {
                                 EventDispatchThreadHelper.checkEDT();
-                                startImpl(true);
+                                startImpl(false);
                             });
+                        } else {
+                            make(compilerManager, compileScope);
                         }
-                    } catch (Exception e) {
-                        MessageBusManager.publishAnalysisFinished(project, new Object(), e);
-                    }
+                    });
                 });
             }
         });
     }
 
+    private void make(@NotNull final CompilerManager compilerManager, @NotNull final CompileScope compileScope) {
+        MessageBusManager.publishLog(project, "Start build project [" + project.getName() + "]", LogOutput.Level.INFO);
+        compilerManager.make(compileScope, (aborted, errors, warnings, compileContext) -> {
+            try {
+                ToolWindowFactoryImpl.showWindowContent(ToolWindowFactoryImpl.getWindow(project), 1);
+                if (aborted) {
+                    MessageBusManager.publishLog(project, "build aborted", LogOutput.Level.ERROR);
+                }
+                if (errors > 0) {
+                    MessageBusManager.publishLog(project, "build failed", LogOutput.Level.ERROR);
+                }
+                if (aborted || errors > 0) {
+                    MessageBusManager.publishAnalysisFinished(project, new Object(), null);
+                }
+                // TODO: 这里原先是要判断了只有设置的是编译后不启动检测才会执行
+                // 猜测原因是有其他地方设置了编译后自动执行检测，因此防止触发两次
+                if (!aborted && errors == 0) {
+                    EventDispatchThreadHelper.checkEDT(); // see javadoc of CompileStatusNotification
+                    // Compiler can cause dumb mode, and finished() is invoked inside.
+                    // We need to continue outside dumb mode to make activateToolWindow work f. e.
+                    DumbService.getInstance(project).runWhenSmart(() -> {
+                        EventDispatchThreadHelper.checkEDT();
+                        startImpl(true);
+                    });
+                }
+            } catch (Exception e) {
+                MessageBusManager.publishAnalysisFinished(project, new Object(), e);
+            }
+        });
+    }
+
     @Override
     public void analysisAborting() {
         this.cancellingByUser.set(true);
+        AnalysisCancellation current = cancellation;
+        if (current != null) {
+            current.cancel();
+        }
     }
 
-    protected abstract void createCompileScope(
+    /**
+     * Only the modules of the analyze scope (and their dependencies) are built by default.
+     */
+    protected void createCompileScope(
             @NotNull final CompilerManager compilerManager,
-            @NotNull final Consumer<CompileScope> consumer);
+            @NotNull final Consumer<CompileScope> consumer) {
+        consumer.consume(CompilePlanner.createCompileScope(compilerManager, analyzeScope));
+    }
 
     protected abstract AnalyzeScope createAnalyzeScope();
 
@@ -188,14 +260,14 @@ public abstract class SonarScannerStarter implements AnalysisAbortingListener {
     private void startImpl(final boolean justCompiled) {
         final Task task;
         if (startProgressModal) {
-            task = new Task.Modal(project, title, false) {
+            task = new Task.Modal(project, title, true) {
                 @Override
                 public void run(@NotNull final ProgressIndicator indicator) {
                     asyncStart(indicator, justCompiled);
                 }
             };
         } else {
-            task = new Task.Backgroundable(project, title, false) {
+            task = new Task.Backgroundable(project, title, true) {
                 @Override
                 public void run(@NotNull final ProgressIndicator indicator) {
                     asyncStart(indicator, justCompiled);
@@ -213,11 +285,19 @@ public abstract class SonarScannerStarter implements AnalysisAbortingListener {
     private void asyncStart(@NotNull final ProgressIndicator indicator, final boolean justCompiled) {
         indicator.setIndeterminate(true);
 //        indicator.setText("对项目[" + project.getName() + "]执行Sonar代码检测");
+        cancellation = new AnalysisCancellation(indicator);
+        if (cancellingByUser.get()) {
+            cancellation.cancel();
+        }
         try {
             if (!configCompleted()) {
                 throw new ConfigException(ResourcesLoader.getString("error.analysis.noConnection"));
             }
             asyncStartImpl(indicator, justCompiled);
+        } catch (ProcessCanceledException exc) {
+            // 取消前已解析的部分结果已经发布，这里只记录取消
+            MessageBusManager.publishLogToEDT(project, ResourcesLoader.getString("analysis.cancelled"), LogOutput.Level.WARN);
+            MessageBusManager.publishAnalysisAbortedToEDT(project);
         } catch (Exception exc) {
             // SonarScanner内部错误在log中记录的准确，虽然每个error log会中断检查过程并抛出ScannerException但message变得不直接，因此在log中弹出错误提示而此处忽略
             // 修改：log中的有些error并不会阻断整个分析过程，因此原先此处的处理就显得不合理，因此在log中不再提示，均在catch中提示失败
@@ -229,17 +309,54 @@ public abstract class SonarScannerStarter implements AnalysisAbortingListener {
             // }
             EventDispatchThreadHelper.invokeLater(() -> {
                 BalloonTipFactory.showToolWindowErrorNotifier(project, createErrorInfo(exc.getMessage()).toString());
-                String logMessage = exc instanceof ConfigException || exc instanceof ScannerException ? exc.getMessage() : LogUtils.formatException(exc);
+                String logMessage = exc instanceof ConfigException || exc instanceof ScannerException || exc instanceof ScannerWorkerException ? exc.getMessage() : LogUtils.formatException(exc);
                 MessageBusManager.publishLog(project, logMessage, LogOutput.Level.ERROR);
             });
         } finally {
+            analyzeScope.cleanup();
             MessageBusManager.publishAnalysisFinishedToEDT(project, new Object(), null);
         }
     }
 
-    private void asyncStartImpl(@NotNull final ProgressIndicator indicator, final boolean justCompiled) {
-        LogOutput logOutput = new LogOutputImpl(project);
-        EmbeddedScannerHelper.startEmbeddedScanner(project, createAnalyzeScope(), logOutput);
+    private void asyncStartImpl(@NotNull final ProgressIndicator indicator, final boolean justCompiled) throws Exception {
+        boolean parallel = ParallelModuleAnalyzer.isEnabled(analyzeScope);
+        // 与其他项目的分析共享扫描槽位
+        AnalysisGovernor governor = AnalysisGovernor.getInstance();
+        int slots = governor.acquire(parallel ? WorkspaceSettings.getInstance().parallelScannerCount : 1, indicator, cancellation);
+        try {
+            analyze(indicator, parallel, slots);
+        } finally {
+            // 取消后放弃等待的扫描仍在后台执行，真正结束后才释放槽位
+            cancellation.whenStopped(() -> governor.release(slots));
+        }
+    }
+
+    private void analyze(@NotNull final ProgressIndicator indicator, final boolean parallel, final int slots) throws Exception {
+        boolean reportParsed;
+        SensorProfile sensorProfile = new SensorProfile();
+        if (parallel) {
+            reportParsed = new ParallelModuleAnalyzer(project, indicator, cancellation, sensorProfile).analyze(slots, pipelined);
+        } else {
+            AnalysisHistory history = AnalysisHistory.getInstance(project);
+            String scopeType = analyzeScope.getType().name();
+            AnalysisPhaseTracker phaseTracker = new AnalysisPhaseTracker(indicator, history.getPhases(scopeType));
+            String workingDirectory = ReportUtils.createWorkingDir(project, null);
+            LogOutputImpl logOutput = new LogOutputImpl(project, analyzeScope, workingDirectory, false, cancellation);
+            logOutput.setPhaseTracker(phaseTracker);
+            logOutput.setSensorProfile(sensorProfile);
+            EmbeddedScannerHelper.startEmbeddedScanner(project, analyzeScope, workingDirectory, logOutput, cancellation);
+            reportParsed = logOutput.isReportParsed();
+            if (reportParsed) {
+                // 只记录完整结束的分析，作为下次进度的权重
+                history.record(scopeType, phaseTracker.finish());
+            }
+        }
+        if (!sensorProfile.isEmpty()) {
+            SensorProfileHistory.getInstance(project).add(sensorProfile.toRun(analyzeScope.getType().name()));
+        }
+        if (reportParsed) {
+            DirtyFileTracker.getInstance(project).analysisSucceeded(analyzeScope, dirtyFileSequence);
+        }
     }
 
     private boolean configCompleted() {
@@ -30,6 +30,9 @@ import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
 import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
 import com.yujunyang.intellij.plugin.sonar.gui.settings.ApplicationSettingsPanel;
 import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerSessionService;
+import com.yujunyang.intellij.plugin.sonar.service.RuleCacheService;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerWorkerService;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.Nullable;
 
@@ -63,6 +66,32 @@ public class ApplicationSettingsConfigurable implements Configurable {
         Map<String, String> properties = applicationSettingsPanel.getProperties();
         String uiLanguageLocale = applicationSettingsPanel.getUILanguageLocale();
 
+        if (isConnectionsModified(existConnections, connections) || isPropertiesModified(existProperties, properties)) {
+            return true;
+        }
+
+        if (!workspaceSettings.uiLanguageLocale.equals(uiLanguageLocale)) {
+            return true;
+        }
+
+        if (workspaceSettings.parallelModuleAnalysis != applicationSettingsPanel.isParallelModuleAnalysis()
+                || workspaceSettings.parallelScannerCount != applicationSettingsPanel.getParallelScannerCount()
+                || workspaceSettings.pipelinedModuleBuild != applicationSettingsPanel.isPipelinedModuleBuild()
+                || workspaceSettings.prewarmOnStartup != applicationSettingsPanel.isPrewarmOnStartup()
+                || workspaceSettings.scannerSessionIdleMinutes != applicationSettingsPanel.getScannerSessionIdleMinutes()
+                || workspaceSettings.maxConcurrentScanners != applicationSettingsPanel.getMaxConcurrentScanners()
+                || workspaceSettings.scannerHeapEstimateMb != applicationSettingsPanel.getScannerHeapEstimateMb()
+                || workspaceSettings.scannerWorkerProcess != applicationSettingsPanel.isScannerWorkerProcess()
+                || !workspaceSettings.scannerWorkerVmOptions.equals(applicationSettingsPanel.getScannerWorkerVmOptions())
+                || !workspaceSettings.scannerWorkingDirRoot.equals(applicationSettingsPanel.getScannerWorkingDirRoot())) {
+            return true;
+        }
+
+        return false;
+
+    }
+
+    private static boolean isConnectionsModified(Set<SonarQubeSettings> existConnections, List<SonarQubeSettings> connections) {
         if (existConnections.size() != connections.size()) {
             return true;
         }
@@ -72,7 +101,10 @@ public class ApplicationSettingsConfigurable implements Configurable {
                 return true;
             }
         }
+        return false;
+    }
 
+    private static boolean isPropertiesModified(Map<String, String> existProperties, Map<String, String> properties) {
         if (existProperties.size() != properties.size()) {
             return true;
         }
@@ -82,13 +114,7 @@ public class ApplicationSettingsConfigurable implements Configurable {
                 return true;
             }
         }
-
-        if (!workspaceSettings.uiLanguageLocale.equals(uiLanguageLocale)) {
-            return true;
-        }
-
         return false;
-
     }
 
     @Override
@@ -96,8 +122,28 @@ public class ApplicationSettingsConfigurable implements Configurable {
         WorkspaceSettings workspaceSettings = WorkspaceSettings.getInstance();
         List<SonarQubeSettings> connections = applicationSettingsPanel.getConnections();
         Map<String, String> properties = applicationSettingsPanel.getProperties();
+        // 只有连接或扫描参数变化时才丢弃已启动的扫描引擎和规则缓存
+        boolean scannerModified = isConnectionsModified(workspaceSettings.sonarQubeConnections, connections)
+                || isPropertiesModified(workspaceSettings.sonarProperties, properties);
+        if (scannerModified) {
+            ScannerSessionService.getInstance().invalidate();
+            RuleCacheService.getInstance().invalidate();
+        }
+        if (scannerModified || !workspaceSettings.scannerWorkerVmOptions.equals(applicationSettingsPanel.getScannerWorkerVmOptions())) {
+            ScannerWorkerService.getInstance().invalidate();
+        }
         workspaceSettings.sonarQubeConnections = new HashSet<>(connections);
         workspaceSettings.sonarProperties = properties;
+        workspaceSettings.parallelModuleAnalysis = applicationSettingsPanel.isParallelModuleAnalysis();
+        workspaceSettings.parallelScannerCount = applicationSettingsPanel.getParallelScannerCount();
+        workspaceSettings.pipelinedModuleBuild = applicationSettingsPanel.isPipelinedModuleBuild();
+        workspaceSettings.prewarmOnStartup = applicationSettingsPanel.isPrewarmOnStartup();
+        workspaceSettings.scannerSessionIdleMinutes = applicationSettingsPanel.getScannerSessionIdleMinutes();
+        workspaceSettings.maxConcurrentScanners = applicationSettingsPanel.getMaxConcurrentScanners();
+        workspaceSettings.scannerHeapEstimateMb = applicationSettingsPanel.getScannerHeapEstimateMb();
+        workspaceSettings.scannerWorkerProcess = applicationSettingsPanel.isScannerWorkerProcess();
+        workspaceSettings.scannerWorkerVmOptions = applicationSettingsPanel.getScannerWorkerVmOptions();
+        workspaceSettings.scannerWorkingDirRoot = applicationSettingsPanel.getScannerWorkingDirRoot();
 
         boolean languageSwitched = !workspaceSettings.uiLanguageLocale.equals(applicationSettingsPanel.getUILanguageLocale());
         workspaceSettings.uiLanguageLocale = applicationSettingsPanel.getUILanguageLocale();
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.extensions;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileDocumentManagerListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.config.ProjectSettings;
+import com.yujunyang.intellij.plugin.sonar.service.AutoAnalysisScheduler;
+import org.jetbrains.annotations.NotNull;
+
+public class AutoAnalysisSaveListener implements FileDocumentManagerListener {
+    private final Project project;
+
+    public AutoAnalysisSaveListener(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void beforeDocumentSaving(@NotNull Document document) {
+        if (project.isDisposed() || !ProjectSettings.getInstance(project).autoAnalysisOnSave) {
+            return;
+        }
+        VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(document);
+        if (virtualFile == null || !virtualFile.isValid() || !IdeaUtils.isValidFileType(virtualFile.getFileType())) {
+            return;
+        }
+        if (!ProjectFileIndex.getInstance(project).isInSourceContent(virtualFile)) {
+            return;
+        }
+        AutoAnalysisScheduler.getInstance(project).fileSaved(virtualFile);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.extensions;
+
+import java.util.List;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.service.DirtyFileTracker;
+import org.jetbrains.annotations.NotNull;
+
+public class DirtyFileListener implements BulkFileListener {
+    private final Project project;
+
+    public DirtyFileListener(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void after(@NotNull List<? extends VFileEvent> events) {
+        if (project.isDisposed()) {
+            return;
+        }
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        DirtyFileTracker tracker = DirtyFileTracker.getInstance(project);
+        for (VFileEvent event : events) {
+            if (!(event instanceof VFileContentChangeEvent || event instanceof VFileCreateEvent
+                    || event instanceof VFileMoveEvent || event instanceof VFileCopyEvent)) {
+                continue;
+            }
+            VirtualFile virtualFile = event instanceof VFileCopyEvent ? ((VFileCopyEvent) event).findCreatedFile() : event.getFile();
+            if (virtualFile == null || !virtualFile.isValid() || virtualFile.isDirectory()) {
+                continue;
+            }
+            if (IdeaUtils.isValidFileType(virtualFile.getFileType()) && fileIndex.isInSourceContent(virtualFile)) {
+                tracker.markDirty(virtualFile);
+            }
+        }
+    }
+}
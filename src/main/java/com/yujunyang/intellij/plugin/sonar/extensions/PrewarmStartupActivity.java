@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.extensions;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.yujunyang.intellij.plugin.sonar.common.SettingsUtils;
+import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.service.RuleCacheService;
+import com.yujunyang.intellij.plugin.sonar.service.ScannerSessionService;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * When {@link WorkspaceSettings#prewarmOnStartup} is on, download the scanner engine and the analyzer plugins of the
+ * connection of the project into the scanner cache and fetch its rules after indexing, so that the first analysis is
+ * as fast as the following ones.
+ */
+public class PrewarmStartupActivity implements StartupActivity.DumbAware {
+    private static final Logger LOGGER = Logger.getInstance(PrewarmStartupActivity.class);
+
+    @Override
+    public void runActivity(@NotNull Project project) {
+        if (!WorkspaceSettings.getInstance().prewarmOnStartup || ApplicationManager.getApplication().isUnitTestMode()) {
+            return;
+        }
+        DumbService.getInstance(project).runWhenSmart(() -> ApplicationManager.getApplication().executeOnPooledThread(() -> prewarm(project)));
+    }
+
+    private void prewarm(Project project) {
+        SonarQubeSettings connection = SettingsUtils.getSonarQubeConnection(project);
+        if (project.isDisposed() || connection == null) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        int priority = thread.getPriority();
+        // 低优先级执行，避免影响IDE启动后的操作
+        thread.setPriority(Thread.MIN_PRIORITY);
+        try {
+            ScannerSessionService.getInstance().prewarm(project);
+            RuleCacheService.getInstance().getRules(project, WorkspaceSettings.getInstance().languages);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to prewarm SonarScanner of project " + project.getName(), e);
+        } finally {
+            thread.setPriority(priority);
+        }
+    }
+}
@@ -77,6 +77,19 @@ public class ProjectSettingsConfigurable implements Configurable {
         if (projectSettings.severityType != projectSettingsPanel.getSeverityType()) {
             return true;
         }
+        if (projectSettings.autoAnalysisOnSave != projectSettingsPanel.isAutoAnalysisOnSave()) {
+            return true;
+        }
+        if (!projectSettingsPanel.getExclusionPatterns().equals(projectSettings.exclusionPatterns)) {
+            return true;
+        }
+        if (projectSettings.quickProfileEnabled != projectSettingsPanel.isQuickProfileEnabled()
+                || projectSettings.quickProfileSkipCpd != projectSettingsPanel.isQuickProfileSkipCpd()) {
+            return true;
+        }
+        if (!projectSettingsPanel.getQuickProfileProperties().equals(projectSettings.quickProfileProperties)) {
+            return true;
+        }
 
         return false;
     }
@@ -88,6 +101,11 @@ public class ProjectSettingsConfigurable implements Configurable {
         projectSettings.inheritedFromApplication = projectSettingsPanel.isInheritedFromApplication();
         projectSettings.sonarProperties = projectSettingsPanel.getProperties();
         projectSettings.severityType = projectSettingsPanel.getSeverityType();
+        projectSettings.autoAnalysisOnSave = projectSettingsPanel.isAutoAnalysisOnSave();
+        projectSettings.exclusionPatterns = projectSettingsPanel.getExclusionPatterns();
+        projectSettings.quickProfileEnabled = projectSettingsPanel.isQuickProfileEnabled();
+        projectSettings.quickProfileSkipCpd = projectSettingsPanel.isQuickProfileSkipCpd();
+        projectSettings.quickProfileProperties = projectSettingsPanel.getQuickProfileProperties();
     }
 
     @Override
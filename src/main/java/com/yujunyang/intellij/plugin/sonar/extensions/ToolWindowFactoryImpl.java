@@ -29,6 +29,7 @@ import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
 import com.yujunyang.intellij.plugin.sonar.common.PluginConstants;
 import com.yujunyang.intellij.plugin.sonar.gui.toolwindow.LogPanel;
+import com.yujunyang.intellij.plugin.sonar.gui.toolwindow.ProfilePanel;
 import com.yujunyang.intellij.plugin.sonar.gui.toolwindow.ReportPanel;
 import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
 import org.jetbrains.annotations.NotNull;
@@ -39,8 +40,10 @@ public class ToolWindowFactoryImpl implements ToolWindowFactory {
     public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
         ReportPanel reportPanel = new ReportPanel(project);
         LogPanel logPanel = new LogPanel(project);
+        ProfilePanel profilePanel = new ProfilePanel(project);
         toolWindow.getContentManager().addContent(ContentFactory.getInstance().createContent(reportPanel, ResourcesLoader.getString("toolWindow.tab.report"), false));
         toolWindow.getContentManager().addContent(ContentFactory.getInstance().createContent(logPanel, ResourcesLoader.getString("toolWindow.tab.log"), false));
+        toolWindow.getContentManager().addContent(ContentFactory.getInstance().createContent(profilePanel, ResourcesLoader.getString("toolWindow.tab.profile"), false));
     }
 
     @Nullable
@@ -27,7 +27,10 @@ import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.DefaultActionGroup;
 import com.intellij.openapi.ui.ComboBox;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBTextField;
 import com.intellij.ui.components.JBPanel;
 import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
 import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
@@ -47,6 +50,16 @@ public class ApplicationSettingsPanel extends AbstractSettingsPanel<ApplicationS
 
     private DefaultTableModel connectionsTableModel;
     private ComboBox<String> uiLanguagesComboBox;
+    private JBCheckBox parallelModuleAnalysisCheckBox;
+    private JBIntSpinner parallelScannerCountSpinner;
+    private JBCheckBox pipelinedModuleBuildCheckBox;
+    private JBCheckBox scannerWorkerProcessCheckBox;
+    private JBTextField scannerWorkerVmOptionsTextField;
+    private JBTextField scannerWorkingDirRootTextField;
+    private JBCheckBox prewarmOnStartupCheckBox;
+    private JBIntSpinner scannerSessionIdleMinutesSpinner;
+    private JBIntSpinner maxConcurrentScannersSpinner;
+    private JBIntSpinner scannerHeapEstimateMbSpinner;
 
     public ApplicationSettingsPanel() {
         init();
@@ -61,12 +74,54 @@ public class ApplicationSettingsPanel extends AbstractSettingsPanel<ApplicationS
         return UIUtils.getLocaleByLanguageDesc(String.valueOf(selectedItem));
     }
 
+    public boolean isParallelModuleAnalysis() {
+        return parallelModuleAnalysisCheckBox.isSelected();
+    }
+
+    public int getParallelScannerCount() {
+        return parallelScannerCountSpinner.getNumber();
+    }
+
+    public boolean isPipelinedModuleBuild() {
+        return pipelinedModuleBuildCheckBox.isSelected();
+    }
+
+    public boolean isScannerWorkerProcess() {
+        return scannerWorkerProcessCheckBox.isSelected();
+    }
+
+    public String getScannerWorkerVmOptions() {
+        return scannerWorkerVmOptionsTextField.getText().trim();
+    }
+
+    public boolean isPrewarmOnStartup() {
+        return prewarmOnStartupCheckBox.isSelected();
+    }
+
+    public int getScannerSessionIdleMinutes() {
+        return scannerSessionIdleMinutesSpinner.getNumber();
+    }
+
+    public int getMaxConcurrentScanners() {
+        return maxConcurrentScannersSpinner.getNumber();
+    }
+
+    public int getScannerHeapEstimateMb() {
+        return scannerHeapEstimateMbSpinner.getNumber();
+    }
+
+    public String getScannerWorkingDirRoot() {
+        return scannerWorkingDirRootTextField.getText().trim();
+    }
+
     private void init() {
         BoxLayout layout = new BoxLayout(this, BoxLayout.Y_AXIS);
         setLayout(layout);
 
         initUILanguages();
         add(Box.createVerticalStrut(15));
+        initPerformance();
+        add(Box.createVerticalStrut(15));
         initConnections();
         add(Box.createVerticalStrut(15));
         initSonarProperties();
@@ -92,6 +147,99 @@ public class ApplicationSettingsPanel extends AbstractSettingsPanel<ApplicationS
         add(panel);
     }
 
+    private void initPerformance() {
+        JBPanel<ApplicationSettingsPanel> panel = new JBPanel<>(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        panel.setAlignmentX(LEFT_ALIGNMENT);
+
+        WorkspaceSettings workspaceSettings = WorkspaceSettings.getInstance();
+        parallelModuleAnalysisCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.parallelModuleAnalysis.label") + " ");
+        parallelModuleAnalysisCheckBox.setSelected(workspaceSettings.parallelModuleAnalysis);
+        panel.add(parallelModuleAnalysisCheckBox);
+
+        parallelScannerCountSpinner = new JBIntSpinner(workspaceSettings.parallelScannerCount, 1, Runtime.getRuntime().availableProcessors());
+        parallelScannerCountSpinner.setEnabled(workspaceSettings.parallelModuleAnalysis);
+        panel.add(parallelScannerCountSpinner);
+
+        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, panel.getPreferredSize().height));
+
+        add(panel);
+        add(Box.createVerticalStrut(5));
+
+        pipelinedModuleBuildCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.pipelinedModuleBuild.label"));
+        pipelinedModuleBuildCheckBox.setSelected(workspaceSettings.pipelinedModuleBuild);
+        pipelinedModuleBuildCheckBox.setEnabled(workspaceSettings.parallelModuleAnalysis);
+        pipelinedModuleBuildCheckBox.setAlignmentX(LEFT_ALIGNMENT);
+        add(pipelinedModuleBuildCheckBox);
+        add(Box.createVerticalStrut(5));
+
+        parallelModuleAnalysisCheckBox.addItemListener(e -> {
+            parallelScannerCountSpinner.setEnabled(parallelModuleAnalysisCheckBox.isSelected());
+            pipelinedModuleBuildCheckBox.setEnabled(parallelModuleAnalysisCheckBox.isSelected());
+        });
+
+        prewarmOnStartupCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.prewarmOnStartup.label"));
+        prewarmOnStartupCheckBox.setSelected(workspaceSettings.prewarmOnStartup);
+        prewarmOnStartupCheckBox.setAlignmentX(LEFT_ALIGNMENT);
+        add(prewarmOnStartupCheckBox);
+        add(Box.createVerticalStrut(5));
+
+        JBPanel<ApplicationSettingsPanel> sessionPanel = new JBPanel<>(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        sessionPanel.setAlignmentX(LEFT_ALIGNMENT);
+
+        sessionPanel.add(new JBLabel(ResourcesLoader.getString("settings.scannerSessionIdleMinutes.label") + " "));
+        scannerSessionIdleMinutesSpinner = new JBIntSpinner(workspaceSettings.scannerSessionIdleMinutes, 0, 1440);
+        sessionPanel.add(scannerSessionIdleMinutesSpinner);
+
+        sessionPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, sessionPanel.getPreferredSize().height));
+
+        add(sessionPanel);
+        add(Box.createVerticalStrut(5));
+
+        JBPanel<ApplicationSettingsPanel> governorPanel = new JBPanel<>(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        governorPanel.setAlignmentX(LEFT_ALIGNMENT);
+
+        governorPanel.add(new JBLabel(ResourcesLoader.getString("settings.maxConcurrentScanners.label") + " "));
+        maxConcurrentScannersSpinner = new JBIntSpinner(workspaceSettings.maxConcurrentScanners, 1, Runtime.getRuntime().availableProcessors());
+        governorPanel.add(maxConcurrentScannersSpinner);
+        governorPanel.add(new JBLabel(" " + ResourcesLoader.getString("settings.scannerHeapEstimateMb.label") + " "));
+        scannerHeapEstimateMbSpinner = new JBIntSpinner(workspaceSettings.scannerHeapEstimateMb, 0, 65536, 128);
+        governorPanel.add(scannerHeapEstimateMbSpinner);
+
+        governorPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, governorPanel.getPreferredSize().height));
+
+        add(governorPanel);
+        add(Box.createVerticalStrut(5));
+
+        JBPanel<ApplicationSettingsPanel> workerPanel = new JBPanel<>(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        workerPanel.setAlignmentX(LEFT_ALIGNMENT);
+
+        scannerWorkerProcessCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.scannerWorkerProcess.label") + " ");
+        scannerWorkerProcessCheckBox.setSelected(workspaceSettings.scannerWorkerProcess);
+        workerPanel.add(scannerWorkerProcessCheckBox);
+
+        scannerWorkerVmOptionsTextField = new JBTextField(workspaceSettings.scannerWorkerVmOptions, 30);
+        scannerWorkerVmOptionsTextField.setEnabled(workspaceSettings.scannerWorkerProcess);
+        scannerWorkerProcessCheckBox.addItemListener(e -> scannerWorkerVmOptionsTextField.setEnabled(scannerWorkerProcessCheckBox.isSelected()));
+        workerPanel.add(scannerWorkerVmOptionsTextField);
+
+        workerPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, workerPanel.getPreferredSize().height));
+
+        add(workerPanel);
+        add(Box.createVerticalStrut(5));
+
+        JBPanel<ApplicationSettingsPanel> workingDirPanel = new JBPanel<>(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        workingDirPanel.setAlignmentX(LEFT_ALIGNMENT);
+
+        workingDirPanel.add(new JBLabel(ResourcesLoader.getString("settings.scannerWorkingDirRoot.label") + " "));
+        scannerWorkingDirRootTextField = new JBTextField(workspaceSettings.scannerWorkingDirRoot, 30);
+        scannerWorkingDirRootTextField.getEmptyText().setText(ResourcesLoader.getString("settings.scannerWorkingDirRoot.empty"));
+        workingDirPanel.add(scannerWorkingDirRootTextField);
+
+        workingDirPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, workingDirPanel.getPreferredSize().height));
+
+        add(workingDirPanel);
+    }
+
     private void initConnections() {
         addTableLabel(ResourcesLoader.getString("settings.sonarQubeConnections.tableTitle"));
 
@@ -167,6 +315,16 @@ public class ApplicationSettingsPanel extends AbstractSettingsPanel<ApplicationS
 
     public void reset() {
         uiLanguagesComboBox.setSelectedItem(UIUtils.getLanguageDescByLocale(WorkspaceSettings.getInstance().uiLanguageLocale));
+        parallelModuleAnalysisCheckBox.setSelected(WorkspaceSettings.getInstance().parallelModuleAnalysis);
+        parallelScannerCountSpinner.setNumber(WorkspaceSettings.getInstance().parallelScannerCount);
+        pipelinedModuleBuildCheckBox.setSelected(WorkspaceSettings.getInstance().pipelinedModuleBuild);
+        scannerWorkerProcessCheckBox.setSelected(WorkspaceSettings.getInstance().scannerWorkerProcess);
+        scannerWorkerVmOptionsTextField.setText(WorkspaceSettings.getInstance().scannerWorkerVmOptions);
+        prewarmOnStartupCheckBox.setSelected(WorkspaceSettings.getInstance().prewarmOnStartup);
+        scannerSessionIdleMinutesSpinner.setNumber(WorkspaceSettings.getInstance().scannerSessionIdleMinutes);
+        maxConcurrentScannersSpinner.setNumber(WorkspaceSettings.getInstance().maxConcurrentScanners);
+        scannerHeapEstimateMbSpinner.setNumber(WorkspaceSettings.getInstance().scannerHeapEstimateMb);
+        scannerWorkingDirRootTextField.setText(WorkspaceSettings.getInstance().scannerWorkingDirRoot);
         super.reset();
         int connectionsTableRowCount = connectionsTableModel.getRowCount();
         for (int i = connectionsTableRowCount - 1; i >= 0; i--) {
@@ -29,6 +29,7 @@ import com.intellij.openapi.ui.ComboBox;
 import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
+import com.intellij.ui.components.JBTextField;
 import com.yujunyang.intellij.plugin.sonar.config.ProjectSettings;
 import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
 import com.yujunyang.intellij.plugin.sonar.core.SeverityType;
@@ -46,6 +47,11 @@ public class ProjectSettingsPanel extends AbstractSettingsPanel<ProjectSettingsP
     private ComboBox<String> connectionNameComboBox;
     private JBCheckBox inheritedFromApplicationCheckBox;
     private ComboBox<SeverityType> severityComboBox;
+    private JBCheckBox autoAnalysisOnSaveCheckBox;
+    private JBTextField exclusionPatternsTextField;
+    private JBCheckBox quickProfileEnabledCheckBox;
+    private JBCheckBox quickProfileSkipCpdCheckBox;
+    private JBTextField quickProfilePropertiesTextField;
 
     public ProjectSettingsPanel(Project project) {
         this.project = project;
@@ -63,6 +69,26 @@ public class ProjectSettingsPanel extends AbstractSettingsPanel<ProjectSettingsP
         return inheritedFromApplicationCheckBox.isSelected();
     }
 
+    public boolean isAutoAnalysisOnSave() {
+        return autoAnalysisOnSaveCheckBox.isSelected();
+    }
+
+    public String getExclusionPatterns() {
+        return exclusionPatternsTextField.getText().trim();
+    }
+
+    public boolean isQuickProfileEnabled() {
+        return quickProfileEnabledCheckBox.isSelected();
+    }
+
+    public boolean isQuickProfileSkipCpd() {
+        return quickProfileSkipCpdCheckBox.isSelected();
+    }
+
+    public String getQuickProfileProperties() {
+        return quickProfilePropertiesTextField.getText().trim();
+    }
+
 
     private void init() {
         BoxLayout layout = new BoxLayout(this, BoxLayout.Y_AXIS);
@@ -77,6 +103,14 @@ public class ProjectSettingsPanel extends AbstractSettingsPanel<ProjectSettingsP
         // 新增 问题级别过滤配置
         add(Box.createVerticalStrut(15));
         initSeverityComboBox();
+        add(Box.createVerticalStrut(15));
+        autoAnalysisOnSaveCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.project.autoAnalysisOnSave"));
+        autoAnalysisOnSaveCheckBox.setAlignmentX(LEFT_ALIGNMENT);
+        add(autoAnalysisOnSaveCheckBox);
+        add(Box.createVerticalStrut(15));
+        initExclusionPatterns();
+        add(Box.createVerticalStrut(15));
+        initQuickProfile();
 
         // 这个不用主动调用，settings窗口打开时就会调用重写的reset方法，内部就是下面的reset
         // reset();
@@ -94,6 +128,43 @@ public class ProjectSettingsPanel extends AbstractSettingsPanel<ProjectSettingsP
         panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, panel.getPreferredSize().height));
     }
 
+    private void initExclusionPatterns() {
+        JBPanel<ProjectSettingsPanel> panel = new JBPanel<>(new BorderLayout());
+        panel.setAlignmentX(LEFT_ALIGNMENT);
+        add(panel);
+        panel.add(new JBLabel(ResourcesLoader.getString("settings.project.exclusionPatterns") + " "), BorderLayout.WEST);
+
+        exclusionPatternsTextField = new JBTextField();
+        exclusionPatternsTextField.getEmptyText().setText(ResourcesLoader.getString("settings.project.exclusionPatterns.emptyText"));
+        panel.add(exclusionPatternsTextField, BorderLayout.CENTER);
+        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, panel.getPreferredSize().height));
+    }
+
+    private void initQuickProfile() {
+        quickProfileEnabledCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.project.quickProfile.enabled"));
+        quickProfileEnabledCheckBox.setAlignmentX(LEFT_ALIGNMENT);
+        add(quickProfileEnabledCheckBox);
+        add(Box.createVerticalStrut(5));
+        quickProfileSkipCpdCheckBox = new JBCheckBox(ResourcesLoader.getString("settings.project.quickProfile.skipCpd"));
+        quickProfileSkipCpdCheckBox.setAlignmentX(LEFT_ALIGNMENT);
+        add(quickProfileSkipCpdCheckBox);
+        add(Box.createVerticalStrut(5));
+        quickProfilePropertiesTextField = addTextField("settings.project.quickProfile.properties");
+        quickProfilePropertiesTextField.getEmptyText().setText(ResourcesLoader.getString("settings.project.quickProfile.properties.emptyText"));
+    }
+
+    private JBTextField addTextField(String labelKey) {
+        JBPanel<ProjectSettingsPanel> panel = new JBPanel<>(new BorderLayout());
+        panel.setAlignmentX(LEFT_ALIGNMENT);
+        add(panel);
+        panel.add(new JBLabel(ResourcesLoader.getString(labelKey) + " "), BorderLayout.WEST);
+
+        JBTextField textField = new JBTextField();
+        panel.add(textField, BorderLayout.CENTER);
+        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, panel.getPreferredSize().height));
+        return textField;
+    }
+
     private void initConnectionName() {
         JBPanel<ProjectSettingsPanel> panel = new JBPanel<>(new BorderLayout());
         panel.setAlignmentX(LEFT_ALIGNMENT);
@@ -134,6 +205,11 @@ public class ProjectSettingsPanel extends AbstractSettingsPanel<ProjectSettingsP
         connectionNameComboBox.setSelectedItem(projectSettings.getSonarQubeConnectionName());
         severityComboBox.setSelectedItem(projectSettings.getSeverityType());
         inheritedFromApplicationCheckBox.setSelected(projectSettings.inheritedFromApplication);
+        autoAnalysisOnSaveCheckBox.setSelected(projectSettings.autoAnalysisOnSave);
+        exclusionPatternsTextField.setText(projectSettings.exclusionPatterns);
+        quickProfileEnabledCheckBox.setSelected(projectSettings.quickProfileEnabled);
+        quickProfileSkipCpdCheckBox.setSelected(projectSettings.quickProfileSkipCpd);
+        quickProfilePropertiesTextField.setText(projectSettings.quickProfileProperties);
 
         Map<String, String> existProperties = projectSettings.sonarProperties;
         for (Map.Entry<String, String> item : existProperties.entrySet()) {
@@ -25,6 +25,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
 import com.intellij.util.ui.JBUI;
+import com.yujunyang.intellij.plugin.sonar.core.RuleProfileTier;
 import com.yujunyang.intellij.plugin.sonar.gui.common.UIUtils;
 import com.yujunyang.intellij.plugin.sonar.gui.layout.SampleVerticalScrollLayout;
 import com.yujunyang.intellij.plugin.sonar.messages.IssueResolvedListener;
@@ -55,6 +56,7 @@ public class IssuesDisplayControlPanel extends JBPanel<IssuesDisplayControlPanel
     private JBLabel majorCountLabel;
     private JBLabel minorCountLabel;
     private JBLabel infoCountLabel;
+    private JBLabel ruleProfileTierLabel;
 
     public IssuesDisplayControlPanel(Project project) {
         this.project = project;
@@ -65,6 +67,11 @@ public class IssuesDisplayControlPanel extends JBPanel<IssuesDisplayControlPanel
     private void init() {
         setLayout(new SampleVerticalScrollLayout());
 
+        // 标识当前结果由完整规则还是快速规则产生
+        ruleProfileTierLabel = new JBLabel(getRuleProfileTierText(RuleProfileTier.FULL));
+        add(ruleProfileTierLabel);
+        add(Box.createVerticalStrut(5));
+
         addTitleLabel(ResourcesLoader.getString("toolWindow.report.displayControl.severityTypeTitle"));
         blockerCountLabel = createCountLabel("0");
         addControlItemPanel("severityType.blocker", blockerCountLabel, "BLOCKER");
@@ -108,6 +115,7 @@ public class IssuesDisplayControlPanel extends JBPanel<IssuesDisplayControlPanel
 
     public void refresh() {
         ProblemCacheService problemCacheService = ProblemCacheService.getInstance(project);
+        ruleProfileTierLabel.setText(getRuleProfileTierText(problemCacheService.getRuleProfileTier()));
         blockerCountLabel.setText(String.valueOf(problemCacheService.getBlockerCount()));
         criticalCountLabel.setText(String.valueOf(problemCacheService.getCriticalCount()));
         majorCountLabel.setText(String.valueOf(problemCacheService.getMajorCount()));
@@ -126,6 +134,7 @@ public class IssuesDisplayControlPanel extends JBPanel<IssuesDisplayControlPanel
     }
 
     public void reset() {
+        ruleProfileTierLabel.setText(getRuleProfileTierText(RuleProfileTier.FULL));
         Arrays.asList(
                 blockerCountLabel,
                 criticalCountLabel,
@@ -202,6 +211,10 @@ public class IssuesDisplayControlPanel extends JBPanel<IssuesDisplayControlPanel
         add(Box.createVerticalStrut(5));
     }
 
+    private static String getRuleProfileTierText(RuleProfileTier tier) {
+        return ResourcesLoader.getString("toolWindow.report.displayControl.ruleProfile." + tier.name().toLowerCase());
+    }
+
     private void addTitleLabel(String title) {
         JBLabel label = new JBLabel(title);
         Font font = new Font(label.getFont().getFontName(), Font.BOLD, 13);
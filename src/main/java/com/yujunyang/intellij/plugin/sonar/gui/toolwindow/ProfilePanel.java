@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.gui.toolwindow;
+
+import java.awt.BorderLayout;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.swing.table.DefaultTableModel;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBPanel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import com.yujunyang.intellij.plugin.sonar.config.SensorProfileHistory;
+import com.yujunyang.intellij.plugin.sonar.messages.AnalysisFinishedListener;
+import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+
+/**
+ * Sensor timings of the last analysis, slowest first, compared with the analysis before.
+ */
+public class ProfilePanel extends JBPanel {
+    private Project project;
+    private JBLabel runLabel;
+    private DefaultTableModel tableModel;
+
+    public ProfilePanel(Project project) {
+        this.project = project;
+        setLayout(new BorderLayout());
+        init();
+        refresh();
+        MessageBusManager.subscribe(project, this, AnalysisFinishedListener.TOPIC, (result, error) -> refresh());
+    }
+
+    private void init() {
+        runLabel = new JBLabel();
+        runLabel.setBorder(JBUI.Borders.empty(5));
+        add(runLabel, BorderLayout.NORTH);
+
+        tableModel = new DefaultTableModel(0, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tableModel.setColumnIdentifiers(new String[]{
+                ResourcesLoader.getString("profile.column.sensor"),
+                ResourcesLoader.getString("profile.column.language"),
+                ResourcesLoader.getString("profile.column.module"),
+                ResourcesLoader.getString("profile.column.time"),
+                ResourcesLoader.getString("profile.column.previousTime"),
+                ResourcesLoader.getString("profile.column.change")
+        });
+        JBTable table = new JBTable(tableModel);
+        table.getEmptyText().setText(ResourcesLoader.getString("profile.empty"));
+        add(new JBScrollPane(table), BorderLayout.CENTER);
+    }
+
+    private void refresh() {
+        tableModel.setRowCount(0);
+        SensorProfileHistory history = SensorProfileHistory.getInstance(project);
+        SensorProfileHistory.ProfileRun lastRun = history.getRun(0);
+        if (lastRun == null) {
+            runLabel.setText("");
+            return;
+        }
+        runLabel.setText(ResourcesLoader.getString("profile.lastRun",
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(lastRun.timestamp)), lastRun.scopeType));
+
+        // 与上一次同范围类型的分析对比
+        Map<String, Long> previousTimes = new HashMap<>();
+        for (int i = 1; ; i++) {
+            SensorProfileHistory.ProfileRun run = history.getRun(i);
+            if (run == null) {
+                break;
+            }
+            if (lastRun.scopeType.equals(run.scopeType)) {
+                run.timings.forEach(n -> previousTimes.put(n.getKey(), n.time));
+                break;
+            }
+        }
+
+        List<SensorProfileHistory.SensorTiming> timings = lastRun.timings.stream()
+                .sorted(Comparator.comparingLong((SensorProfileHistory.SensorTiming n) -> n.time).reversed())
+                .collect(Collectors.toList());
+        for (SensorProfileHistory.SensorTiming timing : timings) {
+            Long previousTime = previousTimes.get(timing.getKey());
+            tableModel.addRow(new Object[]{
+                    timing.name,
+                    timing.language == null ? "" : timing.language,
+                    timing.module == null ? "" : timing.module,
+                    timing.time,
+                    previousTime == null ? "" : previousTime,
+                    previousTime == null ? "" : String.format("%+d", timing.time - previousTime)
+            });
+        }
+    }
+}
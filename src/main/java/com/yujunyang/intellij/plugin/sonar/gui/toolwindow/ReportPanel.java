@@ -23,16 +23,20 @@ package com.yujunyang.intellij.plugin.sonar.gui.toolwindow;
 
 import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
 import com.intellij.ui.OnePixelSplitter;
 import com.intellij.ui.components.JBPanel;
+import com.intellij.util.Alarm;
 import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
 import com.yujunyang.intellij.plugin.sonar.common.LogUtils;
+import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
 import com.yujunyang.intellij.plugin.sonar.core.SonarScannerStarter;
 import com.yujunyang.intellij.plugin.sonar.extensions.ToolWindowFactoryImpl;
 import com.yujunyang.intellij.plugin.sonar.gui.common.BalloonTipFactory;
 import com.yujunyang.intellij.plugin.sonar.gui.common.UIUtils;
 import com.yujunyang.intellij.plugin.sonar.messages.AnalysisStateListener;
 import com.yujunyang.intellij.plugin.sonar.messages.ClearListener;
+import com.yujunyang.intellij.plugin.sonar.messages.IssuesParsedListener;
 import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
 import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
 import com.yujunyang.intellij.plugin.sonar.service.ProblemCacheService;
@@ -41,9 +45,13 @@ import org.jetbrains.annotations.Nullable;
 import org.sonarsource.scanner.api.LogOutput;
 
 import java.awt.*;
+import java.util.List;
 
 public class ReportPanel extends JBPanel<ReportPanel> implements AnalysisStateListener, ClearListener {
+    private static final int STREAMED_REFRESH_DELAY_MILLIS = 300;
+
     private final Project project;
+    private final Alarm streamedRefreshAlarm;
 
     private LeftToolbarPanel leftToolbarPanel;
     private JBPanel<ReportPanel> bodyPanel;
@@ -55,9 +63,11 @@ public class ReportPanel extends JBPanel<ReportPanel> implements AnalysisStateLi
     public ReportPanel(@NotNull Project project) {
         this.project = project;
         setLayout(new BorderLayout());
+        streamedRefreshAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, project);
         init();
         MessageBusManager.subscribeAnalysisState(project, this, this);
         MessageBusManager.subscribe(project, this, ClearListener.TOPIC, this);
+        MessageBusManager.subscribe(project, this, IssuesParsedListener.TOPIC, this::issuesParsed);
     }
 
     private void init() {
@@ -95,6 +105,22 @@ public class ReportPanel extends JBPanel<ReportPanel> implements AnalysisStateLi
         issueDetailPanel.reset();
     }
 
+    private void issuesParsed(@NotNull List<PsiFile> psiFiles) {
+        DaemonCodeAnalyzer daemonCodeAnalyzer = DaemonCodeAnalyzer.getInstance(project);
+        psiFiles.stream().filter(PsiFile::isValid).forEach(daemonCodeAnalyzer::restart);
+        // 报告解析过程中分批展示，短时间内的多个批次只刷新一次问题列表
+        if (streamedRefreshAlarm.isDisposed() || streamedRefreshAlarm.getActiveRequestCount() > 0) {
+            return;
+        }
+        streamedRefreshAlarm.addRequest(() -> {
+            if (AnalyzeState.get(project).isIdle()) {
+                return;
+            }
+            refresh();
+            bodyPanelLayout.show(bodyPanel, "REPORT");
+        }, STREAMED_REFRESH_DELAY_MILLIS);
+    }
+
     @Override
     public void analysisAborted() {
         leftToolbarPanel.updateUI();
@@ -127,7 +153,9 @@ public class ReportPanel extends JBPanel<ReportPanel> implements AnalysisStateLi
 
     @Override
     public void analysisStarted() {
-        reset();
+        if (!ProblemCacheService.getInstance(project).getAnalyzeScope().isIncremental()) {
+            reset();
+        }
     }
 
     @Override
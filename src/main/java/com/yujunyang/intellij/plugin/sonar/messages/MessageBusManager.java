@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
 import com.intellij.util.messages.Topic;
 import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
@@ -100,17 +101,23 @@ public final class MessageBusManager {
 
     public static void publishAnalysisStarted(@NotNull final Project project) {
         EventDispatchThreadHelper.checkEDT();
-        (new Thread(() -> ReportUtils.deleteReportDir(project))).start();
+        final long startTime = System.currentTimeMillis();
+        (new Thread(() -> ReportUtils.deleteReportDir(project, startTime))).start();
         AnalyzeState.set(project, AnalyzeState.Started);
-        ProblemCacheService.getInstance(project).reset();
-        DaemonCodeAnalyzer.getInstance(project).restart();
+        ProblemCacheService problemCacheService = ProblemCacheService.getInstance(project);
+        // 增量分析保留上次的结果, 报告解析后只替换分析范围内文件的问题
+        if (!problemCacheService.getAnalyzeScope().isIncremental()) {
+            problemCacheService.reset();
+            DaemonCodeAnalyzer.getInstance(project).restart();
+        }
         publish(project, AnalysisStartedListener.TOPIC).analysisStarted();
     }
 
     public static void publishAnalysisStartedToEDT(@NotNull final Project project) {
         EventDispatchThreadHelper.checkNotEDT();
         EventDispatchThreadHelper.invokeLater(() -> {
-            (new Thread(() -> ReportUtils.deleteReportDir(project))).start();
+            final long startTime = System.currentTimeMillis();
+            (new Thread(() -> ReportUtils.deleteReportDir(project, startTime))).start();
             AnalyzeState.set(project, AnalyzeState.Started);
             publish(project, AnalysisStartedListener.TOPIC).analysisStarted();
         });
@@ -164,6 +171,13 @@ public final class MessageBusManager {
         publish(project, DuplicatedBlocksIssueClickListener.TOPIC).click(issues);
     }
 
+    public static void publishIssuesParsedToEDT(@NotNull final Project project, @NotNull final List<PsiFile> psiFiles) {
+        EventDispatchThreadHelper.checkNotEDT();
+        EventDispatchThreadHelper.invokeLater(() -> {
+            publish(project, IssuesParsedListener.TOPIC).issuesParsed(psiFiles);
+        });
+    }
+
     public static void publishIssueResolved(@NotNull final Project project) {
         EventDispatchThreadHelper.checkEDT();
         publish(project, IssueResolvedListener.TOPIC).click();
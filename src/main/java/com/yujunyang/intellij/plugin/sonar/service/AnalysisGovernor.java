@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.LinkedList;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.core.AnalysisCancellation;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Limits the concurrent scanner executions of all open projects. The number of slots is
+ * {@link WorkspaceSettings#maxConcurrentScanners}, further limited by the IDE heap divided by
+ * {@link WorkspaceSettings#scannerHeapEstimateMb} when the scanner runs in the IDE process.
+ * <p>
+ * Analyses waiting for slots are served first come first served, a waiting analysis shows its queue position on its
+ * progress indicator.
+ */
+public final class AnalysisGovernor {
+    private static final long WAIT_MILLIS = 500;
+
+    private final Object lock;
+    private final LinkedList<Object> waiting;
+    private int usedSlots;
+
+    public AnalysisGovernor() {
+        lock = new Object();
+        waiting = new LinkedList<>();
+    }
+
+    public static AnalysisGovernor getInstance() {
+        return ApplicationManager.getApplication().getService(AnalysisGovernor.class);
+    }
+
+    /**
+     * Block until slots are free, must not be called on EDT.
+     *
+     * @param requestedSlots scanner executions the analysis runs at once
+     * @return the slots granted, at most the total slots, to pass to {@link #release(int)}
+     * @throws ProcessCanceledException if cancelled while waiting
+     */
+    public int acquire(int requestedSlots, @NotNull ProgressIndicator indicator, @NotNull AnalysisCancellation cancellation) {
+        Object ticket = new Object();
+        boolean granted = false;
+        synchronized (lock) {
+            waiting.add(ticket);
+            try {
+                while (true) {
+                    cancellation.checkCancelled();
+                    int slots = Math.max(1, Math.min(requestedSlots, getSlotCount()));
+                    if (waiting.getFirst() == ticket && usedSlots + slots <= getSlotCount()) {
+                        usedSlots += slots;
+                        granted = true;
+                        return slots;
+                    }
+                    indicator.setText2(ResourcesLoader.getString("analysis.waitingForSlot", waiting.indexOf(ticket) + 1, usedSlots));
+                    lock.wait(WAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(e);
+            } finally {
+                waiting.remove(ticket);
+                lock.notifyAll();
+                if (granted) {
+                    indicator.setText2("");
+                }
+            }
+        }
+    }
+
+    /**
+     * Must only be called once the scanner executions of the slots really ended, not as soon as the analysis is
+     * cancelled, otherwise the cancelled scanners still running would exceed the limit. See
+     * {@link com.yujunyang.intellij.plugin.sonar.core.AnalysisCancellation#whenStopped(Runnable)}.
+     */
+    public void release(int slots) {
+        synchronized (lock) {
+            usedSlots -= slots;
+            lock.notifyAll();
+        }
+    }
+
+    private static int getSlotCount() {
+        WorkspaceSettings workspaceSettings = WorkspaceSettings.getInstance();
+        int ret = Math.max(1, workspaceSettings.maxConcurrentScanners);
+        // 独立进程中执行时不占用IDE的堆
+        if (!workspaceSettings.scannerWorkerProcess && workspaceSettings.scannerHeapEstimateMb > 0) {
+            long maxHeapMb = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+            ret = Math.min(ret, (int) Math.max(1, maxHeapMb / workspaceSettings.scannerHeapEstimateMb));
+        }
+        return ret;
+    }
+}
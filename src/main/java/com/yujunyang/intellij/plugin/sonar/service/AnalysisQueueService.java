@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.Project;
+import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
+import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
+import com.yujunyang.intellij.plugin.sonar.core.SonarScannerStarter;
+import com.yujunyang.intellij.plugin.sonar.messages.AnalysisAbortingListener;
+import com.yujunyang.intellij.plugin.sonar.messages.AnalysisFinishedListener;
+import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sonarsource.scanner.api.LogOutput;
+
+/**
+ * Analyses requested while another one is running are queued here. The pending scopes are merged into one scope,
+ * which is widened to the whole project when it gets too large, and analyzed right after the running analysis.
+ * <p>
+ * Only accessed in EDT.
+ */
+public class AnalysisQueueService implements AnalysisFinishedListener, AnalysisAbortingListener {
+    private static final int MAX_MERGED_FILES = 200;
+    private static final int MAX_MERGED_MODULES = 5;
+
+    private final Project project;
+    private AnalyzeScope pendingScope;
+    private boolean subscribed;
+
+    public AnalysisQueueService(Project project) {
+        this.project = project;
+    }
+
+    public static AnalysisQueueService getInstance(@NotNull Project project) {
+        return project.getService(AnalysisQueueService.class);
+    }
+
+    public void enqueue(@NotNull AnalyzeScope analyzeScope) {
+        EventDispatchThreadHelper.checkEDT();
+        if (!subscribed) {
+            MessageBusManager.subscribe(project, this, AnalysisFinishedListener.TOPIC, this);
+            MessageBusManager.subscribe(project, this, AnalysisAbortingListener.TOPIC, this);
+            subscribed = true;
+        }
+        pendingScope = pendingScope == null ? analyzeScope : ReadAction.compute(() -> widen(AnalyzeScope.merge(pendingScope, analyzeScope)));
+        MessageBusManager.publishLog(project, ResourcesLoader.getString("analysis.queued", pendingScope.getScopeDescription()), LogOutput.Level.INFO);
+    }
+
+    private AnalyzeScope widen(AnalyzeScope analyzeScope) {
+        if (analyzeScope.getFiles().size() > MAX_MERGED_FILES || analyzeScope.getWholeModules().size() > MAX_MERGED_MODULES) {
+            return new AnalyzeScope(project, AnalyzeScope.ScopeType.PROJECT_FILES);
+        }
+        return analyzeScope;
+    }
+
+    @Override
+    public void analysisFinished(@NotNull Object result, @Nullable Throwable error) {
+        if (pendingScope == null) {
+            return;
+        }
+        AnalyzeScope analyzeScope = pendingScope;
+        pendingScope = null;
+        // 等待其他监听器处理完结束事件后再开始，同时避免在消息分发中订阅
+        EventDispatchThreadHelper.invokeLater(() -> {
+            if (project.isDisposed()) {
+                return;
+            }
+            new SonarScannerStarter(project, ResourcesLoader.getString("task.analysis.title", project.getName())) {
+                @Override
+                protected AnalyzeScope createAnalyzeScope() {
+                    return analyzeScope;
+                }
+            }.start();
+        });
+    }
+
+    @Override
+    public void analysisAborting() {
+        // 用户终止分析时一并放弃排队的分析
+        pendingScope = null;
+    }
+}
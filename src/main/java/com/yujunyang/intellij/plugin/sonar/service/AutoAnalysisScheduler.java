@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.Alarm;
+import com.yujunyang.intellij.plugin.sonar.common.EventDispatchThreadHelper;
+import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.config.ProjectSettings;
+import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
+import com.yujunyang.intellij.plugin.sonar.core.AnalyzeState;
+import com.yujunyang.intellij.plugin.sonar.core.SonarScannerStarter;
+import com.yujunyang.intellij.plugin.sonar.messages.AnalysisFinishedListener;
+import com.yujunyang.intellij.plugin.sonar.messages.MessageBusManager;
+import com.yujunyang.intellij.plugin.sonar.resources.ResourcesLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Starts an incremental analysis of the saved files when {@link ProjectSettings#autoAnalysisOnSave} is on.
+ * <p>
+ * Saves are debounced, the files saved during the debounce delay and during a running analysis are coalesced into
+ * the scope of the next run, so that at most one run is in flight and one is queued.
+ */
+public class AutoAnalysisScheduler implements Disposable, AnalysisFinishedListener {
+    private static final int DEBOUNCE_MILLIS = 1500;
+
+    private final Project project;
+    private final Alarm alarm;
+    private final Set<VirtualFile> pendingFiles;
+    private boolean subscribed;
+
+    public AutoAnalysisScheduler(Project project) {
+        this.project = project;
+        alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        pendingFiles = new LinkedHashSet<>();
+    }
+
+    public void fileSaved(@NotNull VirtualFile virtualFile) {
+        if (!ProjectSettings.getInstance(project).autoAnalysisOnSave) {
+            return;
+        }
+        synchronized (pendingFiles) {
+            pendingFiles.add(virtualFile);
+        }
+        schedule(DEBOUNCE_MILLIS);
+    }
+
+    private void schedule(int delayMillis) {
+        if (alarm.isDisposed()) {
+            return;
+        }
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::flush, delayMillis);
+    }
+
+    private void flush() {
+        EventDispatchThreadHelper.checkEDT();
+        if (project.isDisposed()) {
+            return;
+        }
+        if (!subscribed) {
+            MessageBusManager.subscribe(project, this, AnalysisFinishedListener.TOPIC, this);
+            subscribed = true;
+        }
+        // 正在分析时保留待分析文件, 分析结束后合并为一次分析
+        if (!AnalyzeState.get(project).isIdle()) {
+            return;
+        }
+
+        List<VirtualFile> files;
+        synchronized (pendingFiles) {
+            pendingFiles.removeIf(n -> !IdeaUtils.isValidProjectFile(project, n));
+            if (pendingFiles.isEmpty()) {
+                return;
+            }
+            files = new ArrayList<>(pendingFiles);
+            pendingFiles.clear();
+        }
+
+        new SonarScannerStarter(project, ResourcesLoader.getString("task.analysis.title", project.getName())) {
+            @Override
+            protected AnalyzeScope createAnalyzeScope() {
+                AnalyzeScope analyzeScope = new AnalyzeScope(project, AnalyzeScope.ScopeType.MODIFIED_FILES, files);
+                analyzeScope.setInteractive(true);
+                return analyzeScope;
+            }
+        }.start();
+    }
+
+    @Override
+    public void analysisFinished(@NotNull Object result, @Nullable Throwable error) {
+        boolean hasPendingFiles;
+        synchronized (pendingFiles) {
+            hasPendingFiles = !pendingFiles.isEmpty();
+        }
+        if (hasPendingFiles) {
+            schedule(0);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (pendingFiles) {
+            pendingFiles.clear();
+        }
+    }
+
+    public static AutoAnalysisScheduler getInstance(@NotNull Project project) {
+        return project.getService(AutoAnalysisScheduler.class);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Caches the library jars of every module so that the classpath of an analysis is not enumerated again on every run.
+ * The cache is dropped when the project roots change, see {@link com.yujunyang.intellij.plugin.sonar.extensions.ClasspathIndexListener}
+ * and {@link ProjectRootManager#getModificationCount()}.
+ */
+public class ClasspathIndexService {
+    private final Project project;
+    private final Map<Module, Set<String>> moduleLibraries;
+    private final Map<Module, Set<Module>> moduleDependencies;
+    private volatile long rootsModificationCount;
+
+    public ClasspathIndexService(Project project) {
+        this.project = project;
+        moduleLibraries = new ConcurrentHashMap<>();
+        moduleDependencies = new ConcurrentHashMap<>();
+        rootsModificationCount = -1;
+    }
+
+    public void invalidate() {
+        moduleLibraries.clear();
+        moduleDependencies.clear();
+    }
+
+    /**
+     * Comma separated jars of all the modules of the project.
+     */
+    @NotNull
+    public String getProjectLibraries() {
+        return ApplicationManager.getApplication().runReadAction((Computable<String>) () ->
+                getLibraries(ModuleManager.getInstance(project).getModules()));
+    }
+
+    /**
+     * Comma separated jars of the modules and the modules they depend on.
+     */
+    @NotNull
+    public String getLibraries(@NotNull Collection<Module> modules) {
+        return ApplicationManager.getApplication().runReadAction((Computable<String>) () -> {
+            Set<Module> closure = new LinkedHashSet<>();
+            modules.forEach(n -> closure.addAll(getDependencyClosure(n)));
+            return getLibraries(closure.toArray(Module.EMPTY_ARRAY));
+        });
+    }
+
+    /**
+     * Comma separated compiler output directories of the modules and the modules they depend on.
+     */
+    @NotNull
+    public String getOutputDirectories(@NotNull Collection<Module> modules) {
+        return ApplicationManager.getApplication().runReadAction((Computable<String>) () -> {
+            Set<String> ret = new LinkedHashSet<>();
+            for (Module module : modules) {
+                for (Module dependency : getDependencyClosure(module)) {
+                    CompilerModuleExtension compilerModuleExtension = CompilerModuleExtension.getInstance(dependency);
+                    if (compilerModuleExtension == null) {
+                        continue;
+                    }
+                    for (VirtualFile outputPath : compilerModuleExtension.getOutputRoots(true)) {
+                        ret.add(outputPath.getPresentableUrl());
+                    }
+                }
+            }
+            return String.join(",", ret);
+        });
+    }
+
+    private String getLibraries(Module[] modules) {
+        checkModificationCount();
+        Set<String> ret = new LinkedHashSet<>();
+        for (Module module : modules) {
+            if (!module.isDisposed()) {
+                ret.addAll(moduleLibraries.computeIfAbsent(module, ClasspathIndexService::collectLibraries));
+            }
+        }
+        return String.join(",", ret);
+    }
+
+    private Set<Module> getDependencyClosure(Module module) {
+        checkModificationCount();
+        return moduleDependencies.computeIfAbsent(module, n -> {
+            Set<Module> ret = new LinkedHashSet<>();
+            collectDependencies(n, ret);
+            return ret;
+        });
+    }
+
+    private static void collectDependencies(Module module, Set<Module> ret) {
+        if (!ret.add(module)) {
+            return;
+        }
+        for (Module dependency : ModuleRootManager.getInstance(module).getDependencies(true)) {
+            collectDependencies(dependency, ret);
+        }
+    }
+
+    private static Set<String> collectLibraries(Module module) {
+        Set<String> ret = new LinkedHashSet<>();
+        OrderEnumerator.orderEntries(module).withoutDepModules().withoutModuleSourceEntries().getPathsList().getPathList().forEach(n -> {
+            if (n.endsWith(".jar")) {
+                ret.add(n);
+            }
+        });
+        return ret;
+    }
+
+    private void checkModificationCount() {
+        long modificationCount = ProjectRootManager.getInstance(project).getModificationCount();
+        if (modificationCount != rootsModificationCount) {
+            invalidate();
+            rootsModificationCount = modificationCount;
+        }
+    }
+
+    public static ClasspathIndexService getInstance(@NotNull Project project) {
+        return project.getService(ClasspathIndexService.class);
+    }
+}
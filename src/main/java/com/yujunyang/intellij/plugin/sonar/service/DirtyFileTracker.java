@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.yujunyang.intellij.plugin.sonar.common.IdeaUtils;
+import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Records the files modified since they were last analyzed successfully, so that an incremental analysis only
+ * sends those files to the scanner.
+ */
+public class DirtyFileTracker {
+    private final Project project;
+    private final Map<VirtualFile, Long> dirtyFiles;
+    private final AtomicLong sequence;
+
+    public DirtyFileTracker(Project project) {
+        this.project = project;
+        dirtyFiles = new ConcurrentHashMap<>();
+        sequence = new AtomicLong();
+    }
+
+    public void markDirty(@NotNull VirtualFile virtualFile) {
+        dirtyFiles.put(virtualFile, sequence.incrementAndGet());
+    }
+
+    /**
+     * @return the value to pass to {@link #analysisSucceeded(AnalyzeScope, long)} for an analysis starting now
+     */
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    @NotNull
+    public List<VirtualFile> getDirtyFiles() {
+        List<VirtualFile> ret = new ArrayList<>();
+        dirtyFiles.keySet().removeIf(n -> !n.isValid());
+        for (VirtualFile virtualFile : dirtyFiles.keySet()) {
+            if (IdeaUtils.isValidProjectFile(project, virtualFile)) {
+                ret.add(virtualFile);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Same filter as {@link #getDirtyFiles()}, so that nothing is enabled for files that would not be analyzed.
+     */
+    public boolean hasDirtyFiles() {
+        return dirtyFiles.keySet().stream().anyMatch(n -> IdeaUtils.isValidProjectFile(project, n));
+    }
+
+    /**
+     * Forget the files of the scope that were not modified again after the analysis started.
+     */
+    public void analysisSucceeded(@NotNull AnalyzeScope analyzeScope, long startSequence) {
+        ReadAction.run(() -> dirtyFiles.entrySet().removeIf(n -> n.getValue() <= startSequence && analyzeScope.contains(n.getKey())));
+    }
+
+    public static DirtyFileTracker getInstance(@NotNull Project project) {
+        return project.getService(DirtyFileTracker.class);
+    }
+}
@@ -21,12 +21,15 @@
 
 package com.yujunyang.intellij.plugin.sonar.service;
 
+import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.yujunyang.intellij.plugin.sonar.core.AbstractIssue;
 import com.yujunyang.intellij.plugin.sonar.core.AnalyzeScope;
 import com.yujunyang.intellij.plugin.sonar.core.DuplicatedBlocksIssue;
 import com.yujunyang.intellij.plugin.sonar.core.Issue;
+import com.yujunyang.intellij.plugin.sonar.core.RuleProfileTier;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
@@ -51,6 +54,14 @@ public class ProblemCacheService {
     private long ignoreIssueCount;
 
     private AnalyzeScope analyzeScope;
+    private RuleProfileTier ruleProfileTier = RuleProfileTier.FULL;
+    /**
+     * Profile of the last analysis of the whole scope, {@link #fileTiers} and {@link #moduleTiers} keep the files and
+     * modules analyzed since then by incremental analyses with another profile.
+     */
+    private RuleProfileTier baseRuleProfileTier = RuleProfileTier.FULL;
+    private final Map<VirtualFile, RuleProfileTier> fileTiers;
+    private final Map<Module, RuleProfileTier> moduleTiers;
 
     public ProblemCacheService(Project project) {
         this.project = project;
@@ -66,6 +77,8 @@ public class ProblemCacheService {
         ignoreIssueCount = 0;
 
         filters = new HashSet<>();
+        fileTiers = new HashMap<>();
+        moduleTiers = new HashMap<>();
     }
 
     public ConcurrentMap<PsiFile, List<AbstractIssue>> getIssues() {
@@ -202,6 +215,74 @@ public class ProblemCacheService {
         }));
     }
 
+    /**
+     * Replace the results of the files in an incremental analysis scope and keep the others, must be called in read action.
+     */
+    public void mergeIssues(AnalyzeScope analyzeScope, ConcurrentMap<PsiFile, List<AbstractIssue>> issues) {
+        if (!initialized) {
+            setRuleProfileTier(analyzeScope.getRuleProfileTier());
+        } else {
+            mergeRuleProfileTier(analyzeScope);
+        }
+        this.issues.keySet().removeIf(n -> !n.isValid() || analyzeScope.contains(n.getVirtualFile()));
+        setIssues(issues);
+        recalculateStats();
+    }
+
+    /**
+     * The files and modules of the scope now have the results of its profile, the results are mixed while some
+     * files or modules still have the results of another profile than the whole scope.
+     */
+    private void mergeRuleProfileTier(AnalyzeScope analyzeScope) {
+        fileTiers.keySet().removeIf(n -> !n.isValid() || analyzeScope.contains(n));
+        moduleTiers.keySet().removeIf(n -> n.isDisposed() || analyzeScope.getWholeModules().contains(n));
+        RuleProfileTier tier = analyzeScope.getRuleProfileTier();
+        if (tier != baseRuleProfileTier) {
+            analyzeScope.getFiles().forEach(n -> fileTiers.put(n, tier));
+            analyzeScope.getWholeModules().forEach(n -> moduleTiers.put(n, tier));
+        }
+        ruleProfileTier = fileTiers.isEmpty() && moduleTiers.isEmpty() ? baseRuleProfileTier : RuleProfileTier.MIXED;
+    }
+
+    private void recalculateStats() {
+        long bugCount = 0;
+        long codeSmellCount = 0;
+        long vulnerabilityCount = 0;
+        long duplicatedBlocksCount = 0;
+        long securityHotSpotCount = 0;
+        for (List<AbstractIssue> issueList : issues.values()) {
+            boolean existDuplicatedBlocksIssue = false;
+            for (AbstractIssue issue : issueList) {
+                if (issue instanceof DuplicatedBlocksIssue) {
+                    existDuplicatedBlocksIssue = true;
+                    duplicatedBlocksCount++;
+                    continue;
+                }
+                switch (issue.getType()) {
+                    case "BUG":
+                        bugCount++;
+                        break;
+                    case "VULNERABILITY":
+                        vulnerabilityCount++;
+                        break;
+                    case "CODE_SMELL":
+                        codeSmellCount++;
+                        break;
+                    case "SECURITY_HOTSPOT":
+                        securityHotSpotCount++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            // 与报告解析一致, 一个文件的所有重复块只算作一个异味
+            if (existDuplicatedBlocksIssue) {
+                codeSmellCount++;
+            }
+        }
+        setStats(bugCount, codeSmellCount, vulnerabilityCount, duplicatedBlocksCount, securityHotSpotCount);
+    }
+
     public long getBugCount() {
         return bugCount;
     }
@@ -243,6 +324,18 @@ public class ProblemCacheService {
         this.securityHotSpotCount = securityHotSpotCount;
     }
 
+    /**
+     * Accumulate the stats of one of several partial reports of the same analysis.
+     */
+    public synchronized void addStats(long bugCount, long codeSmellCount, long vulnerabilityCount, long duplicatedBlocksCount, long securityHotSpotCount) {
+        setStats(
+                this.bugCount + bugCount,
+                this.codeSmellCount + codeSmellCount,
+                this.vulnerabilityCount + vulnerabilityCount,
+                this.duplicatedBlocksCount + duplicatedBlocksCount,
+                this.securityHotSpotCount + securityHotSpotCount);
+    }
+
     public boolean isInitialized() {
         return initialized;
     }
@@ -255,8 +348,23 @@ public class ProblemCacheService {
         return analyzeScope;
     }
 
+    public RuleProfileTier getRuleProfileTier() {
+        return ruleProfileTier;
+    }
+
+    /**
+     * Profile of an analysis of the whole scope, the results of previous incremental analyses are all replaced.
+     */
+    public void setRuleProfileTier(RuleProfileTier ruleProfileTier) {
+        this.ruleProfileTier = ruleProfileTier;
+        baseRuleProfileTier = ruleProfileTier;
+        fileTiers.clear();
+        moduleTiers.clear();
+    }
+
     public void reset() {
         initialized = false;
+        setRuleProfileTier(RuleProfileTier.FULL);
         issues.clear();
         bugCount = 0;
         codeSmellCount = 0;
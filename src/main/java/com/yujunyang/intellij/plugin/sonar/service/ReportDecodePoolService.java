@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Owns the {@link ForkJoinPool} decoding and building the reports, shared by all the reports parsed at the same time,
+ * e.g. by the concurrent executions of the parallel module analysis.
+ * <p>
+ * The reports are parsed while the other scanner executions are still running: the pool gets the processors not used
+ * by the concurrent executions, so that parsing never competes with the scanners for all the processors. The pool is
+ * replaced when the parallel scanner settings change, a replaced pool is shut down once its last report released it.
+ */
+public final class ReportDecodePoolService implements Disposable {
+    private final Map<ForkJoinPool, Integer> users;
+    private ForkJoinPool pool;
+
+    public ReportDecodePoolService() {
+        users = new IdentityHashMap<>();
+    }
+
+    /**
+     * The pool must be given back by {@link #release(ForkJoinPool)} when the report is parsed.
+     */
+    @NotNull
+    public synchronized ForkJoinPool acquire() {
+        int parallelism = getParallelism();
+        if (pool == null || pool.getParallelism() != parallelism) {
+            ForkJoinPool previous = pool;
+            pool = createPool(parallelism);
+            if (previous != null && !users.containsKey(previous)) {
+                previous.shutdown();
+            }
+        }
+        users.merge(pool, 1, Integer::sum);
+        return pool;
+    }
+
+    public synchronized void release(@NotNull ForkJoinPool released) {
+        Integer count = users.get(released);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            users.put(released, count - 1);
+            return;
+        }
+        users.remove(released);
+        // 已被替换的线程池在最后一个报告解析完成后关闭
+        if (released != pool) {
+            released.shutdown();
+        }
+    }
+
+    @Override
+    public synchronized void dispose() {
+        // 正在执行的任务会执行完成
+        users.keySet().forEach(ForkJoinPool::shutdown);
+        users.clear();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static int getParallelism() {
+        WorkspaceSettings workspaceSettings = WorkspaceSettings.getInstance();
+        int scannerCount = workspaceSettings.parallelModuleAnalysis ? Math.max(1, workspaceSettings.parallelScannerCount) : 1;
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - scannerCount + 1);
+    }
+
+    private static ForkJoinPool createPool(int parallelism) {
+        return new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("SonarAnalyzer Report Decoder " + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    public static ReportDecodePoolService getInstance() {
+        return ApplicationManager.getApplication().getService(ReportDecodePoolService.class);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.yujunyang.intellij.plugin.sonar.api.RulesSearchResponse;
+import com.yujunyang.intellij.plugin.sonar.api.SonarApiImpl;
+import com.yujunyang.intellij.plugin.sonar.common.SettingsUtils;
+import com.yujunyang.intellij.plugin.sonar.common.exceptions.ApiRequestFailedException;
+import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
+import com.yujunyang.intellij.plugin.sonar.core.ScannerSession;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Rules of the default quality profiles per connection and language, so that the rules are not fetched again by
+ * each report. The rules are cached by language and combined on lookup, so that rules fetched for some set of
+ * languages (e.g. at startup by {@link com.yujunyang.intellij.plugin.sonar.extensions.PrewarmStartupActivity}) serve
+ * any other set sharing these languages. Entries expire after {@link #EXPIRE_MINUTES} to pick up profile changes on
+ * the server.
+ */
+public final class RuleCacheService {
+    private static final long EXPIRE_MINUTES = 30;
+
+    private final Map<String, CachedRules> cache;
+
+    public RuleCacheService() {
+        cache = new ConcurrentHashMap<>();
+    }
+
+    public static RuleCacheService getInstance() {
+        return ApplicationManager.getApplication().getService(RuleCacheService.class);
+    }
+
+    /**
+     * Must not be called on EDT, the rules of the languages not cached are fetched from the SonarQube server of the
+     * project.
+     */
+    @NotNull
+    public List<RulesSearchResponse.Rule> getRules(@NotNull Project project, @NotNull Collection<String> languages) throws ApiRequestFailedException {
+        SonarQubeSettings connection = SettingsUtils.getSonarQubeConnection(project);
+        String connectionKey = connection == null ? "" : ScannerSession.keyOf(connection);
+        List<RulesSearchResponse.Rule> ret = new ArrayList<>();
+        List<String> missingLanguages = new ArrayList<>();
+        for (String language : new TreeSet<>(languages)) {
+            CachedRules cachedRules = cache.get(connectionKey + "|" + language);
+            if (cachedRules != null && !cachedRules.isExpired()) {
+                ret.addAll(cachedRules.rules);
+            } else {
+                missingLanguages.add(language);
+            }
+        }
+        if (missingLanguages.isEmpty()) {
+            return ret;
+        }
+
+        SonarApiImpl sonarApi = new SonarApiImpl(project);
+        Map<String, String> profiles = sonarApi.getDefaultProfiles(missingLanguages);
+        for (String language : missingLanguages) {
+            // 没有默认规则集的语言同样缓存，避免每次都查询
+            String profileKey = profiles.get(language);
+            List<RulesSearchResponse.Rule> rules = profileKey == null ? new ArrayList<>() : sonarApi.getRules(profileKey);
+            cache.put(connectionKey + "|" + language, new CachedRules(rules));
+            ret.addAll(rules);
+        }
+        return ret;
+    }
+
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private static final class CachedRules {
+        private final List<RulesSearchResponse.Rule> rules;
+        private final long createdMillis;
+
+        CachedRules(List<RulesSearchResponse.Rule> rules) {
+            this.rules = rules;
+            this.createdMillis = System.currentTimeMillis();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdMillis > TimeUnit.MINUTES.toMillis(EXPIRE_MINUTES);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Started scanners kept idle by key between analyses, shared by {@link ScannerSessionService} and
+ * {@link ScannerWorkerService} which only know how to start them. Idle scanners are stopped after
+ * {@link WorkspaceSettings#scannerSessionIdleMinutes}. {@link #invalidate()} stops the idle scanners, the scanners
+ * in use at that time are stopped when released.
+ */
+public final class ScannerPool<K, T extends ScannerPool.Pooled> implements Disposable {
+    private final Map<K, Deque<T>> idleScanners;
+    private final Consumer<T> disposer;
+    private final ScheduledFuture<?> evictionFuture;
+    private long generation;
+
+    /**
+     * @param disposer stops the idle scanners when the IDE exits
+     */
+    public ScannerPool(@NotNull Consumer<T> disposer) {
+        this.idleScanners = new HashMap<>();
+        this.disposer = disposer;
+        evictionFuture = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+                this::evictIdleScanners, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Take an idle scanner of the key or start a new one, must not be called on EDT.
+     *
+     * @param starter starts a scanner of the given generation
+     */
+    @NotNull
+    public T acquire(@NotNull K key, @NotNull LongFunction<T> starter) {
+        long currentGeneration;
+        synchronized (this) {
+            Deque<T> scanners = idleScanners.get(key);
+            while (scanners != null && !scanners.isEmpty()) {
+                T scanner = scanners.pop();
+                if (scanner.isAlive()) {
+                    return scanner;
+                }
+            }
+            currentGeneration = generation;
+        }
+        return starter.apply(currentGeneration);
+    }
+
+    public synchronized boolean hasIdle(@NotNull K key) {
+        Deque<T> scanners = idleScanners.get(key);
+        return scanners != null && scanners.stream().anyMatch(Pooled::isAlive);
+    }
+
+    /**
+     * Give back a scanner after an analysis, a scanner whose analysis failed is not reused.
+     */
+    public void release(@NotNull K key, @NotNull T scanner, boolean reusable) {
+        if (reusable && scanner.isAlive() && getIdleMillis() > 0) {
+            synchronized (this) {
+                if (scanner.getGeneration() == generation) {
+                    idleScanners.computeIfAbsent(key, k -> new ArrayDeque<>()).push(scanner);
+                    return;
+                }
+            }
+        }
+        stopLater(scanner);
+    }
+
+    /**
+     * Stop the idle scanners, the scanners in use are stopped when released.
+     */
+    public void invalidate() {
+        List<T> scanners = new ArrayList<>();
+        synchronized (this) {
+            generation++;
+            idleScanners.values().forEach(scanners::addAll);
+            idleScanners.clear();
+        }
+        scanners.forEach(this::stopLater);
+    }
+
+    private void evictIdleScanners() {
+        long idleMillis = getIdleMillis();
+        long now = System.currentTimeMillis();
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<T> scanners : idleScanners.values()) {
+                Iterator<T> iterator = scanners.iterator();
+                while (iterator.hasNext()) {
+                    T scanner = iterator.next();
+                    if (!scanner.isAlive() || now - scanner.getLastUsedMillis() >= idleMillis) {
+                        iterator.remove();
+                        expired.add(scanner);
+                    }
+                }
+            }
+            idleScanners.values().removeIf(Deque::isEmpty);
+        }
+        expired.forEach(Pooled::stop);
+    }
+
+    private void stopLater(T scanner) {
+        ApplicationManager.getApplication().executeOnPooledThread(scanner::stop);
+    }
+
+    private static long getIdleMillis() {
+        return TimeUnit.MINUTES.toMillis(Math.max(0, WorkspaceSettings.getInstance().scannerSessionIdleMinutes));
+    }
+
+    @Override
+    public void dispose() {
+        evictionFuture.cancel(false);
+        List<T> scanners = new ArrayList<>();
+        synchronized (this) {
+            idleScanners.values().forEach(scanners::addAll);
+            idleScanners.clear();
+        }
+        scanners.forEach(disposer);
+    }
+
+    /**
+     * A started scanner kept by a {@link ScannerPool}.
+     */
+    public interface Pooled {
+        /**
+         * Value of {@link ScannerPool} generation when the scanner was started, scanners of older generations are
+         * not reused.
+         */
+        long getGeneration();
+
+        long getLastUsedMillis();
+
+        default boolean isAlive() {
+            return true;
+        }
+
+        void stop();
+    }
+}
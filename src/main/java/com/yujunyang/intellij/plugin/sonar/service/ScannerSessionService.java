@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import java.util.Map;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.yujunyang.intellij.plugin.sonar.common.SettingsUtils;
+import com.yujunyang.intellij.plugin.sonar.config.SonarQubeSettings;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.core.ScannerSession;
+import org.jetbrains.annotations.NotNull;
+import org.sonarsource.scanner.api.LogOutput;
+
+/**
+ * Keeps started {@link ScannerSession}s per SonarQube connection and global properties in a {@link ScannerPool}, so
+ * that consecutive analyses skip the scanner bootstrap. All sessions are dropped by {@link #invalidate()} when the
+ * connections or the sonar properties change.
+ */
+public final class ScannerSessionService implements Disposable {
+    private static final Logger LOGGER = Logger.getInstance(ScannerSessionService.class);
+
+    private final ScannerPool<String, ScannerSession> pool;
+
+    public ScannerSessionService() {
+        pool = new ScannerPool<>(ScannerSession::stop);
+    }
+
+    /**
+     * Take an idle session of the connection and settings of the project or start a new one, must not be called on EDT.
+     */
+    @NotNull
+    public ScannerSession acquire(@NotNull Project project, @NotNull LogOutput logOutput) {
+        SonarQubeSettings connection = SettingsUtils.getSonarQubeConnection(project);
+        Map<String, String> globalProperties = ScannerSession.createGlobalProperties(project, connection);
+        return pool.acquire(ScannerSession.keyOf(connection, globalProperties), generation -> ScannerSession.start(connection, globalProperties, generation, logOutput));
+    }
+
+    /**
+     * Start a session for the project unless one is idle, this downloads the scanner engine and the analyzer plugins
+     * into the scanner cache. The session is kept for the next analysis unless the scanner runs in a worker process.
+     */
+    public void prewarm(@NotNull Project project) {
+        SonarQubeSettings connection = SettingsUtils.getSonarQubeConnection(project);
+        if (pool.hasIdle(ScannerSession.keyOf(connection, ScannerSession.createGlobalProperties(project, connection)))) {
+            return;
+        }
+        ScannerSession session = acquire(project, (formattedMessage, level) -> LOGGER.debug(formattedMessage));
+        release(session, !WorkspaceSettings.getInstance().scannerWorkerProcess);
+    }
+
+    /**
+     * Give back a session after an analysis, a session whose analysis failed is not reused.
+     */
+    public void release(@NotNull ScannerSession session, boolean reusable) {
+        pool.release(session.getKey(), session, reusable);
+    }
+
+    /**
+     * Drop all idle sessions, sessions currently in use are stopped when released.
+     */
+    public void invalidate() {
+        pool.invalidate();
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    public static ScannerSessionService getInstance() {
+        return ApplicationManager.getApplication().getService(ScannerSessionService.class);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.service;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.yujunyang.intellij.plugin.sonar.config.WorkspaceSettings;
+import com.yujunyang.intellij.plugin.sonar.core.ScannerWorkerProcess;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps started {@link ScannerWorkerProcess}es in a {@link ScannerPool} by VM options, a worker keeps its scanner
+ * started between analyses of the same connection. All workers are dropped by {@link #invalidate()} when the
+ * settings change.
+ */
+public final class ScannerWorkerService implements Disposable {
+    private final ScannerPool<String, ScannerWorkerProcess> pool;
+
+    public ScannerWorkerService() {
+        // IDE退出时不等待worker正常结束
+        pool = new ScannerPool<>(ScannerWorkerProcess::kill);
+    }
+
+    /**
+     * Take an idle worker or start a new one, must not be called on EDT.
+     */
+    @NotNull
+    public ScannerWorkerProcess acquire() {
+        String vmOptions = WorkspaceSettings.getInstance().scannerWorkerVmOptions;
+        return pool.acquire(vmOptions, generation -> ScannerWorkerProcess.start(vmOptions, generation));
+    }
+
+    /**
+     * Give back a worker after an analysis, a worker whose analysis failed is not reused.
+     */
+    public void release(@NotNull ScannerWorkerProcess worker, boolean reusable) {
+        pool.release(worker.getVmOptions(), worker, reusable);
+    }
+
+    /**
+     * Drop all idle workers, workers currently in use are stopped when released.
+     */
+    public void invalidate() {
+        pool.invalidate();
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    public static ScannerWorkerService getInstance() {
+        return ApplicationManager.getApplication().getService(ScannerWorkerService.class);
+    }
+}
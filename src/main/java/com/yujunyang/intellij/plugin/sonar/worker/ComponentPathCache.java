@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.worker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.sonar.scanner.protocol.output.ScannerReportReader;
+
+/**
+ * Project relative paths of the components of one report by component ref, each component file is decoded at most once
+ * however often it is referenced as the component itself or as the target of duplications. Thread safe.
+ */
+final class ComponentPathCache {
+    private final ScannerReportReader reader;
+    private final Map<Integer, String> paths = new ConcurrentHashMap<>();
+
+    ComponentPathCache(ScannerReportReader reader) {
+        this.reader = reader;
+    }
+
+    String get(int componentRef) {
+        return paths.computeIfAbsent(componentRef, n -> reader.readComponent(n).getProjectRelativePath());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.worker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Issues and duplications of one component decoded from the scanner report, free of any IDE type so that it can be
+ * decoded by the scanner worker process and sent back to the IDE.
+ */
+public class ReportComponent {
+    private String projectRelativePath;
+    private List<ComponentIssue> issues = new ArrayList<>();
+    private List<ComponentDuplication> duplications = new ArrayList<>();
+
+    public String getProjectRelativePath() {
+        return projectRelativePath;
+    }
+
+    public void setProjectRelativePath(String projectRelativePath) {
+        this.projectRelativePath = projectRelativePath;
+    }
+
+    public List<ComponentIssue> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(List<ComponentIssue> issues) {
+        this.issues = issues;
+    }
+
+    public List<ComponentDuplication> getDuplications() {
+        return duplications;
+    }
+
+    public void setDuplications(List<ComponentDuplication> duplications) {
+        this.duplications = duplications;
+    }
+
+    public static class ComponentIssue {
+        private String ruleRepository;
+        private String ruleKey;
+        private String msg;
+        private String severity;
+        private int startLine;
+        private int endLine;
+        private int startOffset;
+        private int endOffset;
+
+        public String getRuleRepository() {
+            return ruleRepository;
+        }
+
+        public void setRuleRepository(String ruleRepository) {
+            this.ruleRepository = ruleRepository;
+        }
+
+        public String getRuleKey() {
+            return ruleKey;
+        }
+
+        public void setRuleKey(String ruleKey) {
+            this.ruleKey = ruleKey;
+        }
+
+        public String getMsg() {
+            return msg;
+        }
+
+        public void setMsg(String msg) {
+            this.msg = msg;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public void setSeverity(String severity) {
+            this.severity = severity;
+        }
+
+        public int getStartLine() {
+            return startLine;
+        }
+
+        public void setStartLine(int startLine) {
+            this.startLine = startLine;
+        }
+
+        public int getEndLine() {
+            return endLine;
+        }
+
+        public void setEndLine(int endLine) {
+            this.endLine = endLine;
+        }
+
+        public int getStartOffset() {
+            return startOffset;
+        }
+
+        public void setStartOffset(int startOffset) {
+            this.startOffset = startOffset;
+        }
+
+        public int getEndOffset() {
+            return endOffset;
+        }
+
+        public void setEndOffset(int endOffset) {
+            this.endOffset = endOffset;
+        }
+    }
+
+    public static class ComponentDuplication {
+        private int startLine;
+        private int endLine;
+        private List<ComponentDuplicate> duplicates = new ArrayList<>();
+
+        public int getStartLine() {
+            return startLine;
+        }
+
+        public void setStartLine(int startLine) {
+            this.startLine = startLine;
+        }
+
+        public int getEndLine() {
+            return endLine;
+        }
+
+        public void setEndLine(int endLine) {
+            this.endLine = endLine;
+        }
+
+        public List<ComponentDuplicate> getDuplicates() {
+            return duplicates;
+        }
+
+        public void setDuplicates(List<ComponentDuplicate> duplicates) {
+            this.duplicates = duplicates;
+        }
+    }
+
+    public static class ComponentDuplicate {
+        /**
+         * Project relative path of the other file, empty if the duplicate is in the same file.
+         */
+        private String path;
+        private int startLine;
+        private int endLine;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getStartLine() {
+            return startLine;
+        }
+
+        public void setStartLine(int startLine) {
+            this.startLine = startLine;
+        }
+
+        public int getEndLine() {
+            return endLine;
+        }
+
+        public void setEndLine(int endLine) {
+            this.endLine = endLine;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.worker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportReader;
+
+/**
+ * Decodes the protobuf scanner report in place, only components with issues or duplications are passed to the consumer.
+ */
+public final class ReportDecoder {
+    private ReportDecoder() {
+    }
+
+    public static void decode(File reportDir, Consumer<ReportComponent> consumer) {
+        decode(reportDir, consumer, () -> false);
+    }
+
+    /**
+     * @param cancelled checked between components, the components decoded before cancellation are kept by the consumer
+     */
+    public static void decode(File reportDir, Consumer<ReportComponent> consumer, BooleanSupplier cancelled) {
+        ScannerReportReader reader = new ScannerReportReader(reportDir);
+        ComponentPathCache componentPaths = new ComponentPathCache(reader);
+        for (Integer componentFileNumber : getAllComponentFileNumbers(reportDir)) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            ReportComponent component = decodeComponent(reader, componentPaths, componentFileNumber);
+            if (component != null) {
+                consumer.accept(component);
+            }
+        }
+    }
+
+    /**
+     * Decodes the components in batches of {@code batchSize} components, the components of a batch are decoded on the
+     * pool and passed to the consumer in component order whatever the parallelism. The consumer is invoked in the
+     * calling thread.
+     *
+     * @param cancelled checked between components, the components decoded before cancellation are passed to the consumer
+     */
+    public static void decode(File reportDir, BooleanSupplier cancelled, ForkJoinPool pool, int batchSize, Consumer<List<ReportComponent>> consumer) {
+        ScannerReportReader reader = new ScannerReportReader(reportDir);
+        ComponentPathCache componentPaths = new ComponentPathCache(reader);
+        List<Integer> componentFileNumbers = getAllComponentFileNumbers(reportDir);
+        for (int from = 0; from < componentFileNumbers.size() && !cancelled.getAsBoolean(); from += batchSize) {
+            List<Integer> batch = componentFileNumbers.subList(from, Math.min(from + batchSize, componentFileNumbers.size()));
+            List<ReportComponent> components;
+            try {
+                components = pool.submit(() -> batch.parallelStream()
+                        .map(n -> cancelled.getAsBoolean() ? null : decodeComponent(reader, componentPaths, n))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+            }
+            if (!components.isEmpty()) {
+                consumer.accept(components);
+            }
+        }
+    }
+
+    private static ReportComponent decodeComponent(ScannerReportReader reader, ComponentPathCache componentPaths, int componentFileNumber) {
+        List<ReportComponent.ComponentIssue> issues = new ArrayList<>();
+        try (CloseableIterator<ScannerReport.Issue> reportIssues = reader.readComponentIssues(componentFileNumber)) {
+            while (reportIssues.hasNext()) {
+                ScannerReport.Issue reportIssue = reportIssues.next();
+                ReportComponent.ComponentIssue issue = new ReportComponent.ComponentIssue();
+                issue.setRuleRepository(reportIssue.getRuleRepository());
+                issue.setRuleKey(reportIssue.getRuleKey());
+                issue.setMsg(reportIssue.getMsg());
+                issue.setSeverity(reportIssue.getSeverity().toString());
+                issue.setStartLine(reportIssue.getTextRange().getStartLine());
+                issue.setEndLine(reportIssue.getTextRange().getEndLine());
+                issue.setStartOffset(reportIssue.getTextRange().getStartOffset());
+                issue.setEndOffset(reportIssue.getTextRange().getEndOffset());
+                issues.add(issue);
+            }
+        }
+
+        List<ReportComponent.ComponentDuplication> duplications = new ArrayList<>();
+        try (CloseableIterator<ScannerReport.Duplication> reportDuplications = reader.readComponentDuplications(componentFileNumber)) {
+            while (reportDuplications.hasNext()) {
+                ScannerReport.Duplication reportDuplication = reportDuplications.next();
+                ReportComponent.ComponentDuplication duplication = new ReportComponent.ComponentDuplication();
+                duplication.setStartLine(reportDuplication.getOriginPosition().getStartLine());
+                duplication.setEndLine(reportDuplication.getOriginPosition().getEndLine());
+                for (ScannerReport.Duplicate d : reportDuplication.getDuplicateList()) {
+                    ReportComponent.ComponentDuplicate duplicate = new ReportComponent.ComponentDuplicate();
+                    duplicate.setPath(d.getOtherFileRef() == 0 ? "" : componentPaths.get(d.getOtherFileRef()));
+                    duplicate.setStartLine(d.getRange().getStartLine());
+                    duplicate.setEndLine(d.getRange().getEndLine());
+                    duplication.getDuplicates().add(duplicate);
+                }
+                duplications.add(duplication);
+            }
+        }
+
+        if (issues.isEmpty() && duplications.isEmpty()) {
+            return null;
+        }
+
+        ReportComponent component = new ReportComponent();
+        component.setProjectRelativePath(componentPaths.get(componentFileNumber));
+        component.setIssues(issues);
+        component.setDuplications(duplications);
+        return component;
+    }
+
+    private static List<Integer> getAllComponentFileNumbers(File reportDir) {
+        List<Integer> componentFileNumbers = new ArrayList<>();
+        reportDir.listFiles((dir, name) -> {
+            if (name.startsWith("component-")) {
+                componentFileNumbers.add(Integer.parseInt(name.split("-")[1].replace(".pb", "")));
+                return true;
+            }
+            return false;
+        });
+        // 文件列举顺序与文件系统有关，排序保证结果顺序确定
+        Collections.sort(componentFileNumbers);
+        return componentFileNumbers;
+    }
+}
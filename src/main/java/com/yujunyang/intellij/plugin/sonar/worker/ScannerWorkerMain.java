@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.worker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yujunyang.intellij.plugin.sonar.common.DefaultObjectMapper;
+import org.sonarsource.scanner.api.EmbeddedScanner;
+import org.sonarsource.scanner.api.LogOutput;
+
+/**
+ * Entry of the scanner worker process, it must not depend on any IDE class.
+ * <p>
+ * The worker reads {@link WorkerRequest}s from the standard input and answers with {@link WorkerResponse}s on the
+ * standard output, one JSON per line. The started {@link EmbeddedScanner} is kept between executions of the same
+ * connection, the report is decoded in place as soon as the scanner generated it and streamed back per component.
+ */
+public final class ScannerWorkerMain {
+    public static final String REPORT_GENERATED_LOG_PREFIX = "Analysis report generated in";
+
+    private final ObjectMapper objectMapper = DefaultObjectMapper.getObjectMapper();
+    private final PrintStream out;
+    private final String pluginVersion;
+    private EmbeddedScanner scanner;
+    private Map<String, String> scannerGlobalProperties;
+    private volatile File reportDir;
+
+    private ScannerWorkerMain(PrintStream out, String pluginVersion) {
+        this.out = out;
+        this.pluginVersion = pluginVersion;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+        // 标准输出只用于通信，分析器自身的输出转到标准错误
+        System.setOut(System.err);
+        String pluginVersion = args.length > 0 ? args[0] : "";
+        new ScannerWorkerMain(out, pluginVersion).run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+    }
+
+    private void run(BufferedReader in) throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                WorkerRequest request = objectMapper.readValue(line, WorkerRequest.class);
+                if (WorkerRequest.TYPE_SHUTDOWN.equals(request.getType())) {
+                    break;
+                }
+                if (WorkerRequest.TYPE_EXECUTE.equals(request.getType())) {
+                    execute(request);
+                }
+            }
+        } finally {
+            stopScanner();
+        }
+    }
+
+    private void execute(WorkerRequest request) {
+        try {
+            Map<String, String> taskProperties = request.getTaskProperties();
+            reportDir = Paths.get(taskProperties.get("sonar.projectBaseDir"))
+                    .resolve(taskProperties.get("sonar.working.directory"))
+                    .resolve("scanner-report")
+                    .normalize()
+                    .toFile();
+            getScanner(request.getGlobalProperties()).execute(taskProperties);
+            write(WorkerResponse.done());
+        } catch (Exception e) {
+            // 执行失败的scanner状态未知，不再复用
+            stopScanner();
+            write(WorkerResponse.error(e.getMessage() == null ? e.toString() : e.getMessage()));
+        } finally {
+            reportDir = null;
+        }
+    }
+
+    private EmbeddedScanner getScanner(Map<String, String> globalProperties) {
+        if (scanner != null && globalProperties.equals(scannerGlobalProperties)) {
+            return scanner;
+        }
+        stopScanner();
+        EmbeddedScanner newScanner = EmbeddedScanner.create("Intellij Sonar plugin", pluginVersion, new WorkerLogOutput());
+        newScanner.addGlobalProperties(globalProperties);
+        newScanner.start();
+        scanner = newScanner;
+        scannerGlobalProperties = new HashMap<>(globalProperties);
+        return scanner;
+    }
+
+    private void stopScanner() {
+        if (scanner == null) {
+            return;
+        }
+        try {
+            scanner.stop();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        scanner = null;
+        scannerGlobalProperties = null;
+    }
+
+    private synchronized void write(WorkerResponse response) {
+        try {
+            out.println(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private class WorkerLogOutput implements LogOutput {
+        @Override
+        public void log(String formattedMessage, Level level) {
+            write(WorkerResponse.log(formattedMessage, level.name()));
+            File currentReportDir = reportDir;
+            if (currentReportDir != null && formattedMessage.startsWith(REPORT_GENERATED_LOG_PREFIX)) {
+                ReportDecoder.decode(currentReportDir, component -> write(WorkerResponse.component(component)));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.worker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One line of JSON sent by the IDE to the standard input of the scanner worker process.
+ */
+public class WorkerRequest {
+    public static final String TYPE_EXECUTE = "execute";
+    public static final String TYPE_SHUTDOWN = "shutdown";
+
+    private String type;
+    private Map<String, String> globalProperties = new HashMap<>();
+    private Map<String, String> taskProperties = new HashMap<>();
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Map<String, String> getGlobalProperties() {
+        return globalProperties;
+    }
+
+    public void setGlobalProperties(Map<String, String> globalProperties) {
+        this.globalProperties = globalProperties;
+    }
+
+    public Map<String, String> getTaskProperties() {
+        return taskProperties;
+    }
+
+    public void setTaskProperties(Map<String, String> taskProperties) {
+        this.taskProperties = taskProperties;
+    }
+}
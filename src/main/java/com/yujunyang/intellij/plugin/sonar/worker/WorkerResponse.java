@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 Yu Junyang
+ * https://github.com/lowkeyfish
+ *
+ * This file is part of Sonar Intellij plugin.
+ *
+ * Sonar Intellij plugin is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Sonar Intellij plugin is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Intellij plugin.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.yujunyang.intellij.plugin.sonar.worker;
+
+/**
+ * One line of JSON written by the scanner worker process to its standard output. An execution is answered by any
+ * number of {@link #TYPE_LOG} and {@link #TYPE_COMPONENT} lines followed by one {@link #TYPE_DONE} or {@link #TYPE_ERROR} line.
+ */
+public class WorkerResponse {
+    public static final String TYPE_LOG = "log";
+    public static final String TYPE_COMPONENT = "component";
+    public static final String TYPE_DONE = "done";
+    public static final String TYPE_ERROR = "error";
+
+    private String type;
+    private String level;
+    private String message;
+    private ReportComponent component;
+
+    public static WorkerResponse log(String message, String level) {
+        WorkerResponse response = new WorkerResponse();
+        response.setType(TYPE_LOG);
+        response.setMessage(message);
+        response.setLevel(level);
+        return response;
+    }
+
+    public static WorkerResponse component(ReportComponent component) {
+        WorkerResponse response = new WorkerResponse();
+        response.setType(TYPE_COMPONENT);
+        response.setComponent(component);
+        return response;
+    }
+
+    public static WorkerResponse done() {
+        WorkerResponse response = new WorkerResponse();
+        response.setType(TYPE_DONE);
+        return response;
+    }
+
+    public static WorkerResponse error(String message) {
+        WorkerResponse response = new WorkerResponse();
+        response.setType(TYPE_ERROR);
+        response.setMessage(message);
+        return response;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public void setLevel(String level) {
+        this.level = level;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public ReportComponent getComponent() {
+        return component;
+    }
+
+    public void setComponent(ReportComponent component) {
+        this.component = component;
+    }
+}
@@ -40,6 +40,7 @@ public interface PluginIcons {
     Icon ANALYZE_PACKAGE_FILES_ICON = LayeredIcon.create(AllIcons.Nodes.Package, AllIcons.Nodes.RunnableMark);
     Icon ANALYZE_MODULE_FILES_NOT_INCLUDING_TESTS_ICON = LayeredIcon.create(AllIcons.Nodes.Module, AllIcons.Nodes.RunnableMark);
     Icon ANALYZE_CHANGELIST_FILES_ICON = LayeredIcon.create(AllIcons.Scope.ChangedFiles, AllIcons.Nodes.RunnableMark);
+    Icon ANALYZE_MODIFIED_FILES_ICON = LayeredIcon.create(AllIcons.Actions.Edit, AllIcons.Nodes.RunnableMark);
     Icon ANALYZE_OPEN_FILES_ICON = LayeredIcon.create(AllIcons.FileTypes.Any_type, AllIcons.Nodes.RunnableMark);
 
     Icon ANALYZE_EXECUTE = AllIcons.Actions.Execute;